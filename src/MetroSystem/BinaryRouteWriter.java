@@ -0,0 +1,95 @@
+package MetroSystem;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+import MultigraphADT.*;
+
+/**
+ * Writes routes and costs as big-endian binary records, readable with
+ * DataInputStream.
+ *
+ * <p>
+ * The file starts with the names, so records refer to stations and lines by
+ * index:
+ *
+ * <code> int MAGIC, int stations, (string id, string name) * stations,
+ * int lines, string line * lines </code>
+ *
+ * <p>
+ * where a string is an int byte count followed by UTF-8 bytes. Then come the
+ * records, each starting with a tag byte:
+ *
+ * <code> 'R', long query, int alternative, byte status, int from, int to,
+ * int length, int legs, (int line, int edges, int station * edges) * legs
+ * </code>
+ *
+ * <p>
+ * where the status is the ordinal of a SearchResult.Status, the stations of a
+ * leg are the ones after the first, and:
+ *
+ * <code> 'C', long query, int from, int to, int length, int switches </code>
+ *
+ * <p>
+ * When there is no route, the alternative, the length and the number of legs
+ * or switches are -1, and no legs follow.
+ */
+public class BinaryRouteWriter extends RouteWriter {
+    public static final int MAGIC = 0x4d525731;
+    public static final byte ROUTE = 'R';
+    public static final byte COST = 'C';
+
+    public BinaryRouteWriter(Adjacency index, WritableByteChannel channel) throws IOException {
+        super(index, channel);
+        this.putInt(MAGIC);
+        this.putInt(index.getNodeCount());
+        for (int v = 0; v < index.getNodeCount(); v++) {
+            Node node = index.getNode(v);
+            this.putString(node.getID());
+            this.putString(node.getName());
+        }
+        this.putInt(index.getLabelCount());
+        for (int l = 0; l < index.getLabelCount(); l++) {
+            this.putString(index.getLabel(l));
+        }
+    }
+
+    private void putString(String text) throws IOException {
+        byte[] bytes = encode(text);
+        this.putInt(bytes.length);
+        this.put(bytes);
+    }
+
+    protected void writeRoute(long query, int alternative, SearchResult.Status status,
+                              int start, int end, IndexedPath path) throws IOException {
+        this.put(ROUTE);
+        this.putLong(query);
+        this.putInt(path == null ? -1 : alternative);
+        this.put((byte) status.ordinal());
+        this.putInt(start);
+        this.putInt(end);
+        if (path == null) {
+            this.putInt(-1);
+            this.putInt(-1);
+            return;
+        }
+        this.putInt(path.size());
+        this.putInt(path.getLegCount());
+        for (int leg = 0; leg < path.getLegCount(); leg++) {
+            this.putInt(path.getLegLabel(leg));
+            this.putInt(path.getLegEnd(leg) - path.getLegStart(leg));
+            for (int i = path.getLegStart(leg); i < path.getLegEnd(leg); i++) {
+                this.putInt(path.getNodeIndex(i + 1));
+            }
+        }
+    }
+
+    public void writeCost(long query, int start, int end, int length, int switches) throws IOException {
+        this.put(COST);
+        this.putLong(query);
+        this.putInt(start);
+        this.putInt(end);
+        this.putInt(length < 0 ? -1 : length);
+        this.putInt(length < 0 ? -1 : switches);
+    }
+}
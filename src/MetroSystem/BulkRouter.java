@@ -0,0 +1,153 @@
+package MetroSystem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import MultigraphADT.*;
+
+/**
+ * Answers many route queries at once, writing the results with a RouteWriter
+ * instead of directions for people.
+ *
+ * <p>
+ * In the best and all modes, queries are read from the standard input as one
+ * pair of station ids per line, and numbered from 0 in order. Lines with
+ * unknown stations are reported and skipped. In the matrix mode, the costs
+ * between every pair of stations are written, query number
+ * <code>from * stations + to</code>.
+ *
+ * <p>
+ * In the all mode, at most a given number of shortest routes are written per
+ * query, DEFAULT_MAX_PATHS unless told otherwise, as some maps have
+ * exponentially many of them. The records of a query cut short carry the
+ * BUDGET_EXHAUSTED status.
+ */
+public class BulkRouter {
+    private static final List<String> MODES = Arrays.asList("best", "all", "matrix");
+
+    /**
+     * Shortest routes written per query in the all mode, by default
+     */
+    public static final long DEFAULT_MAX_PATHS = 1000;
+
+    private final IndexedMultigraph graph;
+    private final RouteWriter writer;
+    private final SearchLimits limits;
+
+    public BulkRouter(IndexedMultigraph graph, RouteWriter writer) {
+        this(graph, writer, DEFAULT_MAX_PATHS);
+    }
+
+    public BulkRouter(IndexedMultigraph graph, RouteWriter writer, long maxPaths) {
+        this.graph = graph;
+        this.writer = writer;
+        this.limits = SearchLimits.NONE.withMaxPaths(maxPaths);
+    }
+
+    /**
+     * Writes the best route, or up to the maximum number of shortest routes if
+     * all is true, of each query read from the input.
+     */
+    public void route(BufferedReader in, boolean all) throws IOException {
+        AdjacencyIndex index = this.graph.getAdjacency();
+        BestRouteSearch search = new BestRouteSearch(index);
+        search.setLandmarks(this.graph.getLandmarks());
+        long query = 0;
+        for (String line = in.readLine(); line != null; line = in.readLine(), query++) {
+            String[] ids = line.trim().split("\\s+");
+            int start = ids.length == 2 ? index.indexOf(this.graph.createNode(ids[0], "")) : -1;
+            int end = ids.length == 2 ? index.indexOf(this.graph.createNode(ids[1], "")) : -1;
+            if (start < 0 || end < 0) {
+                System.err.format("Skipping query %d, unknown stations: %s\n", query, line);
+                continue;
+            }
+            if (all) {
+                this.writer.writeAlternatives(query, start, end,
+                                              this.graph.searchShortest(index.getNode(start), index.getNode(end),
+                                                                        this.limits));
+            } else {
+                search.search(start, end);
+                this.writer.writeRoute(query, start, end, search.getPath(end));
+            }
+        }
+    }
+
+    /**
+     * Writes the costs of the best routes between every pair of stations.
+     */
+    public void matrix() throws IOException {
+        AdjacencyIndex index = this.graph.getAdjacency();
+        BestRouteSearch search = new BestRouteSearch(index);
+        int n = index.getNodeCount();
+        int[] ends = new int[n];
+        for (int v = 0; v < n; v++) {
+            ends[v] = v;
+        }
+        for (int v = 0; v < n; v++) {
+            search.search(v);
+            this.writer.writeCosts((long) v * n, v, ends, search);
+        }
+    }
+
+    /**
+     * Returns the format of the given name, in any case, or null.
+     */
+    private static RouteWriter.Format parseFormat(String name) {
+        for (RouteWriter.Format format : RouteWriter.Format.values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the maximum number of paths of the given argument, or -1 if it
+     * is not a positive number.
+     */
+    private static long parseMaxPaths(String argument) {
+        try {
+            long maxPaths = Long.parseLong(argument);
+            return maxPaths > 0 ? maxPaths : -1;
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static void main(String[] args) {
+        // Check every argument before the output file gets replaced
+        RouteWriter.Format format = args.length == 4 || args.length == 5 ? BulkRouter.parseFormat(args[1]) : null;
+        long maxPaths = args.length == 5 ? BulkRouter.parseMaxPaths(args[4]) : DEFAULT_MAX_PATHS;
+        if (format == null || !MODES.contains(args[3]) || maxPaths < 0) {
+            BulkRouter.printUsage();
+            System.exit(0);
+        }
+
+        IndexedMultigraph graph = new IndexedMultigraph();
+        try {
+            MetroMapParser.parse(args[0], graph);
+            LandmarkPreprocessor.load(args[0], graph);
+            try (RouteWriter writer = RouteWriter.open(format, graph.getAdjacency(), Paths.get(args[2]))) {
+                BulkRouter router = new BulkRouter(graph, writer, maxPaths);
+                if (args[3].equals("matrix")) {
+                    router.matrix();
+                } else {
+                    router.route(new BufferedReader(new InputStreamReader(System.in)), args[3].equals("all"));
+                }
+            }
+        }
+        catch (IOException|MetroMapParser.InvalidMetroMap e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    public static void printUsage() {
+        System.out.format("Usage: [FILENAME] [jsonl|csv|binary] [OUTPUT] [best|all|matrix] [MAX_PATHS]\n");
+    }
+}
@@ -0,0 +1,88 @@
+package MetroSystem;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import MultigraphADT.*;
+
+/**
+ * Writes the criticality scores of every station and line segment of a metro
+ * map to a tab separated file, for capacity and disruption planning.
+ *
+ * <p>
+ * Each station is written as:
+ *
+ * <code> station  ID  Name  betweenness  reachability-loss </code>
+ *
+ * <p>
+ * Each direction of each line segment is written as:
+ *
+ * <code> segment  FromID  ToID  Line  betweenness  reachability-loss </code>
+ */
+public class CriticalityReport {
+    private final CriticalityAnalysis analysis;
+
+    public CriticalityReport(CriticalityAnalysis analysis) {
+        this.analysis = analysis;
+    }
+
+    /**
+     * Writes the report into the given file, replacing it if it exists.
+     */
+    public void write(Path file) throws IOException {
+        Adjacency index = this.analysis.getIndex();
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("# station\tid\tname\tbetweenness\treachability-loss\n");
+            out.write("# segment\tfrom\tto\tline\tbetweenness\treachability-loss\n");
+            for (int v = 0; v < index.getNodeCount(); v++) {
+                Node node = index.getNode(v);
+                out.write("station\t");
+                out.write(node.getID());
+                out.write('\t');
+                out.write(node.getName());
+                out.write('\t');
+                out.write(Double.toString(this.analysis.getNodeBetweenness(v)));
+                out.write('\t');
+                out.write(Long.toString(this.analysis.getNodeReachabilityLoss(v)));
+                out.write('\n');
+            }
+            for (int e = 0; e < index.getEdgeCount(); e++) {
+                out.write("segment\t");
+                out.write(index.getNode(index.getSource(e)).getID());
+                out.write('\t');
+                out.write(index.getNode(index.getTarget(e)).getID());
+                out.write('\t');
+                out.write(index.getLabel(index.getEdgeLabel(e)));
+                out.write('\t');
+                out.write(Double.toString(this.analysis.getEdgeBetweenness(e)));
+                out.write('\t');
+                out.write(Long.toString(this.analysis.getEdgeReachabilityLoss(e)));
+                out.write('\n');
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            CriticalityReport.printUsage();
+            System.exit(0);
+        }
+
+        Multigraph graph = new IndexedMultigraph();
+        try {
+            MetroMapParser.parse(args[0], graph);
+            new CriticalityReport(CriticalityAnalysis.analyse(graph)).write(Paths.get(args[1]));
+        }
+        catch (IOException|MetroMapParser.InvalidMetroMap e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    public static void printUsage() {
+        System.out.format("Usage: [MAP FILENAME] [REPORT FILENAME]\n");
+    }
+}
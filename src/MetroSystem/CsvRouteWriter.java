@@ -0,0 +1,141 @@
+package MetroSystem;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+import MultigraphADT.*;
+
+/**
+ * Writes routes or costs as comma separated values, with a header row.
+ *
+ * <p>
+ * Routes are written one row per edge:
+ *
+ * <code> query,alternative,status,step,line,from_id,from_name,to_id,to_name </code>
+ *
+ * <p>
+ * where status is the name of a SearchResult.Status. A route without edges is written as one row with the start and end stations
+ * and no step nor line. When there is no route, the alternative is left empty
+ * too.
+ *
+ * <p>
+ * Costs are written one row per query:
+ *
+ * <code> query,from_id,from_name,to_id,to_name,length,switches </code>
+ *
+ * <p>
+ * with empty length and switches when there is no route. As each kind of
+ * record has its own columns, a writer only writes one of them.
+ */
+public class CsvRouteWriter extends RouteWriter {
+    private static final byte[] ROUTE_HEADER = encode("query,alternative,status,step,line,from_id,from_name,to_id,to_name\n");
+    private static final byte[] COST_HEADER = encode("query,from_id,from_name,to_id,to_name,length,switches\n");
+    private static final byte[] NO_EDGE = encode(",,,");
+    private static final byte[] NO_COST = encode(",,\n");
+
+    private static final byte[][] STATUSES = new byte[SearchResult.Status.values().length][];
+
+    static {
+        for (SearchResult.Status status : SearchResult.Status.values()) {
+            STATUSES[status.ordinal()] = encode(status.name());
+        }
+    }
+
+    private final byte[][] stations;
+    private final byte[][] lines;
+    private byte[] header;
+
+    public CsvRouteWriter(Adjacency index, WritableByteChannel channel) {
+        super(index, channel);
+        this.stations = new byte[index.getNodeCount()][];
+        for (int v = 0; v < this.stations.length; v++) {
+            Node node = index.getNode(v);
+            this.stations[v] = encode(CsvRouteWriter.quote(node.getID()) + "," + CsvRouteWriter.quote(node.getName()));
+        }
+        this.lines = new byte[index.getLabelCount()][];
+        for (int l = 0; l < this.lines.length; l++) {
+            this.lines[l] = encode(CsvRouteWriter.quote(index.getLabel(l)));
+        }
+    }
+
+    /**
+     * Returns the text as a CSV field, quoted only if needed.
+     */
+    static String quote(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Writes the header of the given kind of record the first time.
+     */
+    private void putHeader(byte[] header) throws IOException {
+        if (this.header == header) {
+            return;
+        }
+        if (this.header != null) {
+            throw new IllegalStateException("Cannot write routes and costs into the same CSV.");
+        }
+        this.header = header;
+        this.put(header);
+    }
+
+    protected void writeRoute(long query, int alternative, SearchResult.Status status,
+                              int start, int end, IndexedPath path) throws IOException {
+        this.putHeader(ROUTE_HEADER);
+        if (path == null || path.isEmpty()) {
+            this.putDecimal(query);
+            this.put((byte) ',');
+            if (path != null) {
+                this.putDecimal(alternative);
+            }
+            this.put((byte) ',');
+            this.put(STATUSES[status.ordinal()]);
+            this.put(NO_EDGE);
+            this.put(this.stations[start]);
+            this.put((byte) ',');
+            this.put(this.stations[end]);
+            this.put((byte) '\n');
+            return;
+        }
+        for (int leg = 0; leg < path.getLegCount(); leg++) {
+            byte[] line = this.lines[path.getLegLabel(leg)];
+            for (int i = path.getLegStart(leg); i < path.getLegEnd(leg); i++) {
+                this.putDecimal(query);
+                this.put((byte) ',');
+                this.putDecimal(alternative);
+                this.put((byte) ',');
+                this.put(STATUSES[status.ordinal()]);
+                this.put((byte) ',');
+                this.putDecimal(i);
+                this.put((byte) ',');
+                this.put(line);
+                this.put((byte) ',');
+                this.put(this.stations[path.getNodeIndex(i)]);
+                this.put((byte) ',');
+                this.put(this.stations[path.getNodeIndex(i + 1)]);
+                this.put((byte) '\n');
+            }
+        }
+    }
+
+    public void writeCost(long query, int start, int end, int length, int switches) throws IOException {
+        this.putHeader(COST_HEADER);
+        this.putDecimal(query);
+        this.put((byte) ',');
+        this.put(this.stations[start]);
+        this.put((byte) ',');
+        this.put(this.stations[end]);
+        if (length < 0) {
+            this.put(NO_COST);
+            return;
+        }
+        this.put((byte) ',');
+        this.putDecimal(length);
+        this.put((byte) ',');
+        this.putDecimal(switches);
+        this.put((byte) '\n');
+    }
+}
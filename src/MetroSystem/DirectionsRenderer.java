@@ -0,0 +1,50 @@
+package MetroSystem;
+
+import java.io.IOException;
+
+import MultigraphADT.*;
+
+/**
+ * Writes the directions to follow a path, leg by leg.
+ *
+ * <p>
+ * Station names and lanes are appended as they are, without building a
+ * formatted string or a Node for each step, so long paths can be streamed
+ * straight to any Writer or PrintStream.
+ */
+public final class DirectionsRenderer {
+    private DirectionsRenderer() {
+    }
+
+    /**
+     * Writes the directions to follow the given path.
+     *
+     * @param path path to follow, null represents no possible path.
+     * @param out where to write the directions.
+     */
+    public static void render(IndexedPath path, Appendable out) throws IOException {
+        if (path == null) {
+            out.append("There is no path between those stations.\n");
+            return;
+        }
+        if (path.isEmpty()) {
+            out.append("Start end end stations are the same, the path is trivial.\n");
+            return;
+        }
+        Adjacency index = path.getAdjacency();
+        out.append("You start at station ")
+           .append(index.getName(path.getNodeIndex(0)))
+           .append(".\n\n");
+        for (int leg = 0; leg < path.getLegCount(); leg++) {
+            out.append("- Take lane ")
+               .append(index.getLabel(path.getLegLabel(leg)))
+               .append(".\n");
+            for (int i = path.getLegStart(leg); i < path.getLegEnd(leg); i++) {
+                out.append("- Go to ")
+                   .append(index.getName(path.getNodeIndex(i + 1)))
+                   .append(".\n");
+            }
+        }
+        out.append("\nYou are now at your destination.\n");
+    }
+}
@@ -1,8 +1,9 @@
 package MetroSystem;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
@@ -17,9 +18,21 @@ import MultigraphADT.*;
  */
 public class InteractiveMetroRouter {
     private Multigraph metroMap;
+    private Scanner in;
+    private Writer out;
 
     public InteractiveMetroRouter(Multigraph metroMap){
+        this(metroMap, new Scanner(System.in));
+    }
+
+    /**
+     * Creates a router reading the user's answers from the given scanner,
+     * shared with other readers of the same input.
+     */
+    public InteractiveMetroRouter(Multigraph metroMap, Scanner in){
         this.metroMap = metroMap;
+        this.in = in;
+        this.out = new BufferedWriter(new OutputStreamWriter(System.out));
     }
 
     /**
@@ -28,7 +41,7 @@ public class InteractiveMetroRouter {
     public void askDirections() {
         Node from = this.askStation("From: ");
         Node to = this.askStation("To: ");
-        List<Edge> path = this.metroMap.searchBest(from, to);
+        IndexedPath path = this.metroMap.searchBest(from, to);
         System.out.println();
         this.outputDirections(path);
     }
@@ -36,27 +49,15 @@ public class InteractiveMetroRouter {
     /**
      * Output instructions to follow the given path.
      *
-     * @param path list of edges to follow, null represents no possible path.
+     * @param path path to follow, null represents no possible path.
      */
-    public void outputDirections(List<Edge> path){
-        if (path == null) {
-            System.out.println("There is no path between those stations.");
-        } else if (path.isEmpty()) {
-            System.out.println("Start end end stations are the same, the path is trivial.");
-        } else {
-            System.out.format("You start at station %s.\n\n",
-                              path.get(0).getStartNode().getName());
-
-            // This will traverse through the path and print out sensible actions to the user.
-            String lane = null;
-            for (Edge edge : path) {
-                if (lane == null || !lane.equals(edge.getLabel())) {
-                    lane = edge.getLabel();
-                    System.out.format("- Take lane %s.\n", lane);
-                }
-                System.out.format("- Go to %s.\n", edge.getEndNode().getName());
-            }
-            System.out.println("\nYou are now at your destination.");
+    public void outputDirections(IndexedPath path){
+        try {
+            DirectionsRenderer.render(path, this.out);
+            this.out.flush();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
@@ -68,8 +69,7 @@ public class InteractiveMetroRouter {
     private String promptInput(String prompt) {
         System.out.print(prompt);
         System.out.flush();
-        Scanner reader = new Scanner(System.in);
-        return reader.nextLine();
+        return this.in.nextLine();
     }
 
     /**
@@ -0,0 +1,135 @@
+package MetroSystem;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+import MultigraphADT.*;
+
+/**
+ * Writes routes as one JSON object per line.
+ *
+ * <p>
+ * A route is written as:
+ *
+ * <code> {"query":1,"alternative":0,"status":"COMPLETE","from":STATION,"to":STATION,"found":true,
+ * "length":3,"switches":2,"legs":[{"line":"Red","stations":[STATION,...]},...]}
+ * </code>
+ *
+ * <p>
+ * where every station is <code>{"id":"12","name":"Park Street"}</code> and the
+ * stations of a leg go from the one where the line is taken to the one where
+ * it is left. The status is the name of a SearchResult.Status. A cost is
+ * written as a route without alternative, status and legs. When
+ * there is no route, "found" is false and nothing follows it.
+ */
+public class JsonRouteWriter extends RouteWriter {
+    private static final byte[] QUERY = encode("{\"query\":");
+    private static final byte[] ALTERNATIVE = encode(",\"alternative\":");
+    private static final byte[][] STATUSES = new byte[SearchResult.Status.values().length][];
+    private static final byte[] FROM = encode(",\"from\":");
+    private static final byte[] TO = encode(",\"to\":");
+    private static final byte[] FOUND = encode(",\"found\":true,\"length\":");
+    private static final byte[] NOT_FOUND = encode(",\"found\":false}\n");
+    private static final byte[] SWITCHES = encode(",\"switches\":");
+    private static final byte[] LEGS = encode(",\"legs\":[");
+    private static final byte[] LINE = encode("{\"line\":");
+    private static final byte[] STATIONS = encode(",\"stations\":[");
+    private static final byte[] END_LEG = encode("]}");
+    private static final byte[] END_ROUTE = encode("]}\n");
+    private static final byte[] END_COST = encode("}\n");
+
+    static {
+        for (SearchResult.Status status : SearchResult.Status.values()) {
+            STATUSES[status.ordinal()] = encode(",\"status\":\"" + status.name() + "\"");
+        }
+    }
+
+    private final byte[][] stations;
+    private final byte[][] lines;
+
+    public JsonRouteWriter(Adjacency index, WritableByteChannel channel) {
+        super(index, channel);
+        this.stations = new byte[index.getNodeCount()][];
+        for (int v = 0; v < this.stations.length; v++) {
+            Node node = index.getNode(v);
+            this.stations[v] = encode("{\"id\":" + JsonRouteWriter.quote(node.getID())
+                                      + ",\"name\":" + JsonRouteWriter.quote(node.getName()) + "}");
+        }
+        this.lines = new byte[index.getLabelCount()][];
+        for (int l = 0; l < this.lines.length; l++) {
+            this.lines[l] = encode(JsonRouteWriter.quote(index.getLabel(l)));
+        }
+    }
+
+    /**
+     * Returns the text as a JSON string literal.
+     */
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2);
+        quoted.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private void putStations(int start, int end) throws IOException {
+        this.put(FROM);
+        this.put(this.stations[start]);
+        this.put(TO);
+        this.put(this.stations[end]);
+    }
+
+    protected void writeRoute(long query, int alternative, SearchResult.Status status,
+                              int start, int end, IndexedPath path) throws IOException {
+        this.put(QUERY);
+        this.putDecimal(query);
+        this.put(ALTERNATIVE);
+        this.putDecimal(alternative);
+        this.put(STATUSES[status.ordinal()]);
+        this.putStations(start, end);
+        if (path == null) {
+            this.put(NOT_FOUND);
+            return;
+        }
+        this.put(FOUND);
+        this.putDecimal(path.size());
+        this.put(SWITCHES);
+        this.putDecimal(path.getLegCount());
+        this.put(LEGS);
+        for (int leg = 0; leg < path.getLegCount(); leg++) {
+            if (leg > 0) this.put((byte) ',');
+            this.put(LINE);
+            this.put(this.lines[path.getLegLabel(leg)]);
+            this.put(STATIONS);
+            for (int i = path.getLegStart(leg); i <= path.getLegEnd(leg); i++) {
+                if (i > path.getLegStart(leg)) this.put((byte) ',');
+                this.put(this.stations[path.getNodeIndex(i)]);
+            }
+            this.put(END_LEG);
+        }
+        this.put(END_ROUTE);
+    }
+
+    public void writeCost(long query, int start, int end, int length, int switches) throws IOException {
+        this.put(QUERY);
+        this.putDecimal(query);
+        this.putStations(start, end);
+        if (length < 0) {
+            this.put(NOT_FOUND);
+            return;
+        }
+        this.put(FOUND);
+        this.putDecimal(length);
+        this.put(SWITCHES);
+        this.putDecimal(switches);
+        this.put(END_COST);
+    }
+}
@@ -0,0 +1,114 @@
+package MetroSystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import MultigraphADT.*;
+
+/**
+ * Selects landmarks for a metro map and writes them next to it, so searches on
+ * the map can be guided towards their destination.
+ *
+ * <p>
+ * The landmarks of <code>map.txt</code> are written to
+ * <code>map.txt.landmarks</code>, which Main reads if it exists. The landmarks
+ * must be selected again whenever the map changes.
+ *
+ * <p>
+ * Also compares the states expanded by guided and plain searches between
+ * random stations.
+ */
+public class LandmarkPreprocessor {
+    private static final int DEFAULT_COUNT = 8;
+    private static final int BENCHMARK_ROUTES = 1000;
+    /**
+     * Seed of the benchmark routes, fixed so runs can be compared
+     */
+    private static final long BENCHMARK_SEED = 308;
+
+    /**
+     * Returns the file the landmarks of the given map are kept in.
+     */
+    public static Path getLandmarksFile(String mapFile) {
+        return Paths.get(mapFile + ".landmarks");
+    }
+
+    /**
+     * Reads the landmarks kept next to the given map into the graph, if there
+     * are any. Landmarks that cannot be read, or were selected on another
+     * version of the map, are skipped with a warning, and the graph keeps
+     * using plain searches.
+     *
+     * @return whether landmarks were loaded.
+     */
+    public static boolean load(String mapFile, IndexedMultigraph graph) {
+        Path file = LandmarkPreprocessor.getLandmarksFile(mapFile);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            graph.setLandmarks(Landmarks.read(graph.getAdjacency(), file));
+            return true;
+        }
+        catch (IOException e) {
+            System.err.format("Skipping landmarks %s: %s\n", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Prints the average number of states expanded by plain and guided
+     * searches of the best route between random stations.
+     */
+    public static void benchmark(Adjacency index, Landmarks landmarks) {
+        BestRouteSearch plain = new BestRouteSearch(index);
+        BestRouteSearch guided = new BestRouteSearch(index);
+        guided.setLandmarks(landmarks);
+        Random random = new Random(BENCHMARK_SEED);
+        long plainSettled = 0;
+        long guidedSettled = 0;
+        for (int i = 0; i < BENCHMARK_ROUTES; i++) {
+            int start = random.nextInt(index.getNodeCount());
+            int end = random.nextInt(index.getNodeCount());
+            plain.search(start, end);
+            guided.search(start, end);
+            plainSettled += plain.getSettledCount();
+            guidedSettled += guided.getSettledCount();
+        }
+        System.out.format("States expanded per route: %.1f plain, %.1f with %d landmarks\n",
+                          (double) plainSettled / BENCHMARK_ROUTES,
+                          (double) guidedSettled / BENCHMARK_ROUTES,
+                          landmarks.getCount());
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            LandmarkPreprocessor.printUsage();
+            System.exit(0);
+        }
+
+        Multigraph graph = new IndexedMultigraph();
+        try {
+            MetroMapParser.parse(args[0], graph);
+            int count = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_COUNT;
+            Landmarks.Selection selection = args.length > 2
+                                          ? Landmarks.Selection.valueOf(args[2].toUpperCase())
+                                          : Landmarks.Selection.FARTHEST;
+            AdjacencyIndex index = AdjacencyIndex.of(graph);
+            Landmarks landmarks = Landmarks.select(index, count, selection);
+            landmarks.write(LandmarkPreprocessor.getLandmarksFile(args[0]));
+            LandmarkPreprocessor.benchmark(index, landmarks);
+        }
+        catch (IOException|MetroMapParser.InvalidMetroMap e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    public static void printUsage() {
+        System.out.format("Usage: [FILENAME] [LANDMARKS] [farthest|avoid]\n");
+    }
+}
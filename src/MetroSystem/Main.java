@@ -2,20 +2,26 @@ package MetroSystem;
 
 import java.util.Scanner;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 import MultigraphADT.*;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length == 2 && args[0].equals("--networks")) {
+            Main.serveNetworks(args[1]);
+            return;
+        }
         if (args.length != 1) {
             Main.printUsage();
             System.exit(0);
         }
         String filename = args[0];
 
-        Multigraph graph = new IndexedMultigraph();
+        IndexedMultigraph graph = new IndexedMultigraph();
         try {
             MetroMapParser.parse(filename, graph);
+            LandmarkPreprocessor.load(filename, graph);
         }
         catch (IOException|MetroMapParser.InvalidMetroMap e) {
             e.printStackTrace();
@@ -25,7 +31,44 @@ public class Main {
         metroSystem.askDirections();
     }
 
+    /**
+     * Asks for directions on any of the networks of a registry file, until an
+     * empty network name is entered.
+     */
+    private static void serveNetworks(String registryFile) {
+        MapRegistry registry = null;
+        try {
+            registry = MapRegistry.read(Paths.get(registryFile), Runtime.getRuntime().maxMemory() / 2);
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        // One scanner for every prompt, so no input is lost in a dropped buffer
+        Scanner input = new Scanner(System.in);
+        while (true) {
+            System.out.format("Networks: %s\nNetwork: ", String.join(", ", registry.getNetworks()));
+            System.out.flush();
+            String network = input.hasNextLine() ? input.nextLine().trim() : "";
+            if (network.isEmpty()) {
+                return;
+            }
+            if (!registry.getNetworks().contains(network)) {
+                System.out.println("\nNo such network, please try again.\n");
+                continue;
+            }
+            try {
+                new InteractiveMetroRouter(registry.get(network), input).askDirections();
+            }
+            catch (IOException|MetroMapParser.InvalidMetroMap e) {
+                e.printStackTrace();
+            }
+            System.out.println();
+        }
+    }
+
     public static void printUsage() {
         System.out.format("Usage: [FILENAME]\n");
+        System.out.format("       --networks [REGISTRY]\n");
     }
 }
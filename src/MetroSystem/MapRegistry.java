@@ -0,0 +1,229 @@
+package MetroSystem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+
+import MultigraphADT.*;
+
+/**
+ * Serves the metro maps of several networks from one process, loading each one
+ * on its first query.
+ *
+ * <p>
+ * Loaded maps are kept while their estimated footprint fits in the memory
+ * budget. Loading a map over the budget evicts the least recently queried
+ * ones, which are loaded again on their next query. Callers keep the graphs
+ * they were given, eviction only drops the registry's reference.
+ *
+ * <p>
+ * Any number of threads can query the registry. Threads asking for a map that
+ * is being loaded wait for it instead of loading it again, while maps of other
+ * networks load at the same time.
+ *
+ * <p>
+ * A registry file lists one network per line, as
+ * <code> network-name map-file </code>, map files being relative to the
+ * registry file. Empty lines and lines starting with # are ignored.
+ */
+public class MapRegistry {
+    /**
+     * Rough sizes in bytes of the objects of an IndexedMultigraph, with its
+     * AdjacencyIndex: a node with its map entry and set of edges, an edge with
+     * its set entry and index arrays, and a character of a name.
+     */
+    private static final long NODE_BYTES = 200;
+    private static final long EDGE_BYTES = 100;
+    private static final long CHAR_BYTES = 2;
+    /**
+     * Distances from and to each landmark, per node
+     */
+    private static final long LANDMARK_BYTES = 8;
+
+    private final long memoryBudget;
+    private final Map<String,Network> networks;
+    /**
+     * Loaded networks, the least recently queried first
+     */
+    private final LinkedHashMap<String,Network> loaded;
+    private long footprint;
+
+    /**
+     * A registered network. Its graph is only loaded while holding its lock,
+     * and only dropped while holding the registry's.
+     */
+    private static final class Network {
+        private final String name;
+        private final String filename;
+        private volatile IndexedMultigraph graph;
+        private long footprint;
+
+        private Network(String name, String filename) {
+            this.name = name;
+            this.filename = filename;
+        }
+    }
+
+    /**
+     * Creates an empty registry that keeps loaded maps within the given number
+     * of bytes, as estimated by estimateFootprint().
+     */
+    public MapRegistry(long memoryBudget) {
+        // Break early and loudly
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget cannot be negative.");
+        }
+        this.memoryBudget = memoryBudget;
+        this.networks = new ConcurrentHashMap<>();
+        this.loaded = new LinkedHashMap<>(16, 0.75f, true);
+        this.footprint = 0;
+    }
+
+    /**
+     * Creates a registry with the networks listed in the given file.
+     */
+    public static MapRegistry read(Path file, long memoryBudget) throws IOException {
+        MapRegistry registry = new MapRegistry(memoryBudget);
+        Path directory = file.toAbsolutePath().getParent();
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                StringTokenizer st = new StringTokenizer(line);
+                if (!st.hasMoreTokens()) continue;
+                String name = st.nextToken();
+                if (name.startsWith("#")) continue;
+                if (st.countTokens() != 1) {
+                    throw new IOException("Poorly formatted network: " + line);
+                }
+                registry.register(name, directory.resolve(st.nextToken()).toString());
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Adds a network, to be loaded from the given map file on its first query.
+     */
+    public void register(String network, String filename) {
+        // Break early and loudly
+        if (network == null || filename == null) {
+            throw new IllegalArgumentException("Cannot register a network without a name and a map file.");
+        }
+        if (this.networks.putIfAbsent(network, new Network(network, filename)) != null) {
+            throw new IllegalArgumentException("Network is already registered.");
+        }
+    }
+
+    /**
+     * Returns the names of the registered networks.
+     */
+    public Set<String> getNetworks() {
+        return this.networks.keySet();
+    }
+
+    /**
+     * Returns the map of the given network, loading it if needed.
+     */
+    public IndexedMultigraph get(String network) throws IOException, MetroMapParser.InvalidMetroMap {
+        Network entry = this.networks.get(network);
+        // Break early and loudly
+        if (entry == null) {
+            throw new IllegalArgumentException("Network is not registered.");
+        }
+        IndexedMultigraph graph = entry.graph;
+        if (graph == null) {
+            synchronized (entry) {
+                // Another thread may have loaded it while we waited
+                graph = entry.graph;
+                if (graph == null) {
+                    graph = this.load(entry.filename);
+                    this.admit(entry, graph);
+                    return graph;
+                }
+            }
+        }
+        synchronized (this) {
+            // Counts as an access, if it was not evicted meanwhile
+            this.loaded.get(entry.name);
+        }
+        return graph;
+    }
+
+    /**
+     * Parses a map file, with its landmarks if there are any, and builds the
+     * index used by its searches.
+     */
+    protected IndexedMultigraph load(String filename) throws IOException, MetroMapParser.InvalidMetroMap {
+        IndexedMultigraph graph = new IndexedMultigraph();
+        MetroMapParser.parse(filename, graph);
+        LandmarkPreprocessor.load(filename, graph);
+        graph.getAdjacency();
+        return graph;
+    }
+
+    /**
+     * Keeps a loaded map, evicting the least recently queried ones until the
+     * loaded maps fit in the budget. The new map is kept even if it does not
+     * fit by itself.
+     */
+    private synchronized void admit(Network entry, IndexedMultigraph graph) {
+        entry.graph = graph;
+        entry.footprint = MapRegistry.estimateFootprint(graph);
+        this.loaded.put(entry.name, entry);
+        this.footprint += entry.footprint;
+
+        Iterator<Network> eldest = this.loaded.values().iterator();
+        while (this.footprint > this.memoryBudget && this.loaded.size() > 1) {
+            Network evicted = eldest.next();
+            eldest.remove();
+            evicted.graph = null;
+            this.footprint -= evicted.footprint;
+        }
+    }
+
+    /**
+     * Returns whether the map of the given network is loaded.
+     */
+    public boolean isLoaded(String network) {
+        Network entry = this.networks.get(network);
+        return entry != null && entry.graph != null;
+    }
+
+    /**
+     * Returns the estimated footprint of the loaded maps.
+     */
+    public synchronized long getFootprint() {
+        return this.footprint;
+    }
+
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Estimates the bytes taken by a loaded map, from the number of stations
+     * and segments, the length of their names and its landmarks, if any.
+     */
+    public static long estimateFootprint(IndexedMultigraph graph) {
+        AdjacencyIndex index = graph.getAdjacency();
+        long bytes = NODE_BYTES * index.getNodeCount() + EDGE_BYTES * index.getEdgeCount();
+        for (int v = 0; v < index.getNodeCount(); v++) {
+            bytes += CHAR_BYTES * (index.getNode(v).getID().length() + index.getName(v).length());
+        }
+        for (int e = 0; e < index.getEdgeCount(); e++) {
+            bytes += CHAR_BYTES * index.getLabel(index.getEdgeLabel(e)).length();
+        }
+        Landmarks landmarks = graph.getLandmarks();
+        if (landmarks != null) {
+            bytes += LANDMARK_BYTES * index.getNodeCount() * landmarks.getCount();
+        }
+        return bytes;
+    }
+}
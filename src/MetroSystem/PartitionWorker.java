@@ -0,0 +1,213 @@
+package MetroSystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import MultigraphADT.*;
+
+/**
+ * Answers partial route searches over one partition of a metro map, on behalf
+ * of a RouteCoordinator.
+ *
+ * <p>
+ * Every worker parses the whole map and partitions its lines the same way with
+ * LinePartitioning, then only keeps the edges of its own partition. Searches
+ * stay within the partition: a worker knows nothing of the stations it does
+ * not serve.
+ *
+ * <p>
+ * Requests and responses are written with DataOutputStream, one connection
+ * serving any number of requests in turn:
+ *
+ * <code> FROM station-id </code> returns the best (length, switches) costs
+ * from the station to every boundary station of the partition, or -1 if the
+ * station is not in the partition.
+ *
+ * <code> BETWEEN </code> returns the best costs between every pair of boundary
+ * stations of the partition.
+ *
+ * <code> PATH start-id end-id </code> returns the edges of the best path
+ * between two stations, or -1 if there is none within the partition.
+ *
+ * <p>
+ * The map is assumed to be bidirectional, as MetroMapParser builds it, so the
+ * cost from a station to a boundary station is also the cost back.
+ */
+public class PartitionWorker {
+    public static final String FROM = "FROM";
+    public static final String BETWEEN = "BETWEEN";
+    public static final String PATH = "PATH";
+
+    private final AdjacencyIndex index;
+    /**
+     * Indices of the boundary stations of this partition
+     */
+    private final int[] boundary;
+
+    /**
+     * Keeps the given partition of the metro map.
+     */
+    public PartitionWorker(Multigraph metroMap, int partitions, int partition) {
+        AdjacencyIndex full = AdjacencyIndex.of(metroMap);
+        LinePartitioning partitioning = LinePartitioning.of(full, partitions);
+        this.index = AdjacencyIndex.of(partitioning.getPartition(partition));
+
+        List<Integer> boundary = new ArrayList<>();
+        for (int v = 0; v < this.index.getNodeCount(); v++) {
+            if (partitioning.isBoundary(full.indexOf(this.index.getNode(v)))) {
+                boundary.add(v);
+            }
+        }
+        this.boundary = boundary.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the index of the station with the given id, or -1 if it is not
+     * in this partition.
+     */
+    private int indexOf(String id) {
+        return this.index.indexOf(new IndexedNode(id, ""));
+    }
+
+    /**
+     * Answers the requests of every connection accepted by the server, until
+     * the server is closed.
+     */
+    public void serve(ServerSocket server) throws IOException {
+        while (!server.isClosed()) {
+            Socket socket = server.accept();
+            Thread thread = new Thread(() -> this.serve(socket));
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void serve(Socket socket) {
+        // Searches keep their own workspace, one per connection
+        BestRouteSearch search = new BestRouteSearch(this.index);
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (true) {
+                String command = in.readUTF();
+                if (command.equals(FROM)) {
+                    this.answerFrom(search, in.readUTF(), out);
+                } else if (command.equals(BETWEEN)) {
+                    this.answerBetween(search, out);
+                } else if (command.equals(PATH)) {
+                    this.answerPath(search, in.readUTF(), in.readUTF(), out);
+                } else {
+                    throw new IOException("Unknown command " + command);
+                }
+                out.flush();
+            }
+        }
+        catch (EOFException e) {
+            // The coordinator closed the connection
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void answerFrom(BestRouteSearch search, String id, DataOutputStream out) throws IOException {
+        int start = this.indexOf(id);
+        if (start < 0) {
+            out.writeInt(-1);
+            return;
+        }
+        search.search(start);
+        int count = 0;
+        for (int b : this.boundary) {
+            if (search.isReached(b)) count++;
+        }
+        out.writeInt(count);
+        for (int b : this.boundary) {
+            if (!search.isReached(b)) continue;
+            out.writeUTF(this.index.getNode(b).getID());
+            out.writeInt(search.getLength(b));
+            out.writeInt(search.getSwitches(b));
+        }
+    }
+
+    private void answerBetween(BestRouteSearch search, DataOutputStream out) throws IOException {
+        out.writeInt(this.boundary.length);
+        for (int from : this.boundary) {
+            String id = this.index.getNode(from).getID();
+            out.writeUTF(id);
+            this.answerFrom(search, id, out);
+        }
+    }
+
+    private void answerPath(BestRouteSearch search, String startId, String endId, DataOutputStream out) throws IOException {
+        int start = this.indexOf(startId);
+        int end = this.indexOf(endId);
+        List<Edge> path = null;
+        if (start >= 0 && end >= 0) {
+            search.search(start);
+            path = search.getPath(end);
+        }
+        if (path == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(path.size());
+        for (Edge edge : path) {
+            out.writeUTF(edge.getStartNode().getID());
+            out.writeUTF(edge.getStartNode().getName());
+            out.writeUTF(edge.getEndNode().getID());
+            out.writeUTF(edge.getEndNode().getName());
+            out.writeUTF(edge.getLabel());
+        }
+    }
+
+    /**
+     * Parses the metro map in the given file and keeps the given partition.
+     * The rest of the map can be garbage collected afterwards.
+     */
+    public static PartitionWorker load(String filename, int partitions, int partition)
+            throws IOException, MetroMapParser.InvalidMetroMap {
+        Multigraph graph = new IndexedMultigraph();
+        MetroMapParser.parse(filename, graph);
+        return new PartitionWorker(graph, partitions, partition);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 5) {
+            PartitionWorker.printUsage();
+            System.exit(0);
+        }
+        int partitions = Integer.parseInt(args[1]);
+        int partition = Integer.parseInt(args[2]);
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        try {
+            PartitionWorker worker = PartitionWorker.load(args[0], partitions, partition);
+            // Only serve the local host unless told otherwise
+            InetAddress address = args.length > 4 ? InetAddress.getByName(args[4])
+                                                  : InetAddress.getLoopbackAddress();
+            try (ServerSocket server = new ServerSocket(port, 50, address)) {
+                System.out.format("Listening on port %d\n", server.getLocalPort());
+                System.out.flush();
+                worker.serve(server);
+            }
+        }
+        catch (IOException|MetroMapParser.InvalidMetroMap e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    public static void printUsage() {
+        System.out.format("Usage: [FILENAME] [PARTITIONS] [PARTITION] [PORT] [ADDRESS]\n");
+    }
+}
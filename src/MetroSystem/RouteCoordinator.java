@@ -0,0 +1,281 @@
+package MetroSystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import MultigraphADT.*;
+
+/**
+ * Finds routes over a metro map split across several PartitionWorker
+ * processes, with the same results as Multigraph.searchBest() on the whole map.
+ *
+ * <p>
+ * On start, the coordinator asks every worker for the costs between its
+ * boundary stations and builds an overlay graph of boundary stations out of
+ * them. For each route it asks the workers holding the start and end stations
+ * for their costs to the boundary stations, finds the best way through the
+ * overlay, and then asks the workers for the actual path of every segment.
+ *
+ * <p>
+ * Costs are compared as searchBest() does: length first, then switches. Going
+ * from a partition into another always switches lines, as partitions do not
+ * share lines, so the switches of a route are the sum of the switches of its
+ * segments.
+ */
+public class RouteCoordinator implements AutoCloseable {
+    private static final long ONE_EDGE = 1L << 32;
+    private static final long UNREACHED = Long.MAX_VALUE;
+    /**
+     * Stands for the start station in the overlay
+     */
+    private static final int START = -1;
+
+    private final List<Worker> workers;
+    private final Map<String,Integer> boundaryIndices;
+    private final List<String> boundaryIds;
+    /**
+     * Overlay edges departing from each boundary station
+     */
+    private final List<List<Segment>> overlay;
+
+    /**
+     * A connection to a worker.
+     */
+    private static final class Worker {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Worker(InetSocketAddress address) throws IOException {
+            this.socket = new Socket(address.getAddress(), address.getPort());
+            this.in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(this.socket.getOutputStream()));
+        }
+    }
+
+    /**
+     * The best way from a station to another within one worker's partition.
+     */
+    private static final class Segment {
+        private final int to;
+        private final long cost;
+        private final int worker;
+
+        private Segment(int to, long cost, int worker) {
+            this.to = to;
+            this.cost = cost;
+            this.worker = worker;
+        }
+    }
+
+    /**
+     * Connects to the given workers and builds the overlay of boundary
+     * stations.
+     */
+    public RouteCoordinator(List<InetSocketAddress> addresses) throws IOException {
+        this.workers = new ArrayList<>();
+        this.boundaryIndices = new HashMap<>();
+        this.boundaryIds = new ArrayList<>();
+        this.overlay = new ArrayList<>();
+        for (InetSocketAddress address : addresses) {
+            this.workers.add(new Worker(address));
+        }
+
+        for (int w = 0; w < this.workers.size(); w++) {
+            Worker worker = this.workers.get(w);
+            worker.out.writeUTF(PartitionWorker.BETWEEN);
+            worker.out.flush();
+            int count = worker.in.readInt();
+            for (int i = 0; i < count; i++) {
+                int from = this.getBoundaryIndex(worker.in.readUTF());
+                for (Map.Entry<String,Long> cost : this.readCosts(worker).entrySet()) {
+                    int to = this.getBoundaryIndex(cost.getKey());
+                    if (to != from) {
+                        this.overlay.get(from).add(new Segment(to, cost.getValue(), w));
+                    }
+                }
+            }
+        }
+    }
+
+    private int getBoundaryIndex(String id) {
+        Integer index = this.boundaryIndices.get(id);
+        if (index == null) {
+            index = this.boundaryIds.size();
+            this.boundaryIndices.put(id, index);
+            this.boundaryIds.add(id);
+            this.overlay.add(new ArrayList<>());
+        }
+        return index;
+    }
+
+    /**
+     * Reads the answer to a FROM request, null if the worker does not have the
+     * station.
+     */
+    private Map<String,Long> readCosts(Worker worker) throws IOException {
+        int count = worker.in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        Map<String,Long> costs = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = worker.in.readUTF();
+            long length = worker.in.readInt();
+            long switches = worker.in.readInt();
+            costs.put(id, length * ONE_EDGE + switches);
+        }
+        return costs;
+    }
+
+    private Map<String,Long> requestCosts(int w, String id) throws IOException {
+        Worker worker = this.workers.get(w);
+        worker.out.writeUTF(PartitionWorker.FROM);
+        worker.out.writeUTF(id);
+        worker.out.flush();
+        return this.readCosts(worker);
+    }
+
+    /**
+     * Asks a worker for the best path between two stations of its partition,
+     * null if there is none.
+     */
+    private List<Edge> requestPath(int w, String startId, String endId) throws IOException {
+        Worker worker = this.workers.get(w);
+        worker.out.writeUTF(PartitionWorker.PATH);
+        worker.out.writeUTF(startId);
+        worker.out.writeUTF(endId);
+        worker.out.flush();
+        int count = worker.in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        List<Edge> path = new LinkedList<>();
+        for (int i = 0; i < count; i++) {
+            Node start = new IndexedNode(worker.in.readUTF(), worker.in.readUTF());
+            Node end = new IndexedNode(worker.in.readUTF(), worker.in.readUTF());
+            path.add(new IndexedEdge(start, end, worker.in.readUTF()));
+        }
+        return path;
+    }
+
+    private static long getCost(List<Edge> path) {
+        long switches = 0;
+        String previousLabel = null;
+        for (Edge e : path) {
+            if (!e.getLabel().equals(previousLabel)) {
+                switches++;
+                previousLabel = e.getLabel();
+            }
+        }
+        return path.size() * ONE_EDGE + switches;
+    }
+
+    /**
+     * Searches for the best route between the stations with the given ids.
+     *
+     * @return best path, represented by a list of edges, or null if there is
+     * no path.
+     */
+    public synchronized List<Edge> searchBest(String startId, String endId) throws IOException {
+        if (startId.equals(endId)) {
+            return new LinkedList<>();
+        }
+        int boundaryCount = this.boundaryIds.size();
+        long[] cost = new long[boundaryCount];
+        int[] previous = new int[boundaryCount];
+        int[] previousWorker = new int[boundaryCount];
+        Arrays.fill(cost, UNREACHED);
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+
+        long bestCost = UNREACHED;
+        int bestLast = START;
+        int bestWorker = -1;
+        for (int w = 0; w < this.workers.size(); w++) {
+            Map<String,Long> fromStart = this.requestCosts(w, startId);
+            if (fromStart == null) continue;
+            for (Map.Entry<String,Long> leg : fromStart.entrySet()) {
+                int b = this.boundaryIndices.get(leg.getKey());
+                if (leg.getValue() < cost[b]) {
+                    cost[b] = leg.getValue();
+                    previous[b] = START;
+                    previousWorker[b] = w;
+                    queue.add(new long[] {leg.getValue(), b});
+                }
+            }
+            // Both stations could be in the same partition
+            List<Edge> direct = this.requestPath(w, startId, endId);
+            if (direct != null && getCost(direct) < bestCost) {
+                bestCost = getCost(direct);
+                bestWorker = w;
+            }
+        }
+
+        // Dijkstra's algorithm over the overlay of boundary stations
+        while (!queue.isEmpty()) {
+            long[] entry = queue.poll();
+            int b = (int) entry[1];
+            if (entry[0] > cost[b]) continue;
+            for (Segment segment : this.overlay.get(b)) {
+                long next = cost[b] + segment.cost;
+                if (next < cost[segment.to]) {
+                    cost[segment.to] = next;
+                    previous[segment.to] = b;
+                    previousWorker[segment.to] = segment.worker;
+                    queue.add(new long[] {next, segment.to});
+                }
+            }
+        }
+
+        // Costs from the end station are also the costs to it
+        for (int w = 0; w < this.workers.size(); w++) {
+            Map<String,Long> toEnd = this.requestCosts(w, endId);
+            if (toEnd == null) continue;
+            for (Map.Entry<String,Long> leg : toEnd.entrySet()) {
+                int b = this.boundaryIndices.get(leg.getKey());
+                if (cost[b] != UNREACHED && cost[b] + leg.getValue() < bestCost) {
+                    bestCost = cost[b] + leg.getValue();
+                    bestLast = b;
+                    bestWorker = w;
+                }
+            }
+        }
+        if (bestCost == UNREACHED) {
+            return null;
+        }
+
+        // Ask for the path of every segment, from the end backwards
+        LinkedList<Edge> path = new LinkedList<>();
+        String to = endId;
+        int worker = bestWorker;
+        for (int b = bestLast; ; b = previous[b]) {
+            String from = b == START ? startId : this.boundaryIds.get(b);
+            path.addAll(0, this.requestPath(worker, from, to));
+            if (b == START) break;
+            to = from;
+            worker = previousWorker[b];
+        }
+        return path;
+    }
+
+    /**
+     * Closes the connections to every worker.
+     */
+    public void close() throws IOException {
+        for (Worker worker : this.workers) {
+            worker.socket.close();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package MetroSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+import MultigraphADT.*;
+
+/**
+ * Writes routes and route costs as records for other programs to read, in
+ * bulk.
+ *
+ * <p>
+ * Records go through a direct buffer into a channel, usually a file. Station
+ * and line names are encoded once, when the writer is created, and then copied
+ * as bytes into every record that mentions them, as are the digits of numbers,
+ * so writing a record allocates nothing.
+ *
+ * <p>
+ * Every record carries a query number chosen by the caller, to match results
+ * with the requests of a batch. A route record also carries the number of the
+ * alternative among the routes of the same query, see writeAlternatives(),
+ * and the status of the search that found them: COMPLETE, or why it stopped
+ * before finding every route.
+ *
+ * <p>
+ * Writers are not thread safe.
+ */
+public abstract class RouteWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Record formats.
+     */
+    public enum Format {
+        /**
+         * One JSON object per line, see JsonRouteWriter.
+         */
+        JSONL,
+        /**
+         * One row per edge or cost, see CsvRouteWriter.
+         */
+        CSV,
+        /**
+         * Big-endian binary records, see BinaryRouteWriter.
+         */
+        BINARY
+    }
+
+    protected final Adjacency index;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] digits;
+
+    protected RouteWriter(Adjacency index, WritableByteChannel channel) {
+        // Break early and loudly
+        if (index == null || channel == null) {
+            throw new IllegalArgumentException("Cannot write routes without a graph and a channel.");
+        }
+        this.index = index;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.digits = new byte[20];
+    }
+
+    /**
+     * Creates a writer of the given format for routes over the given graph.
+     */
+    public static RouteWriter create(Format format, Adjacency index, WritableByteChannel channel) throws IOException {
+        switch (format) {
+            case JSONL:
+                return new JsonRouteWriter(index, channel);
+            case CSV:
+                return new CsvRouteWriter(index, channel);
+            case BINARY:
+                return new BinaryRouteWriter(index, channel);
+            default:
+                throw new IllegalArgumentException("Unknown format.");
+        }
+    }
+
+    /**
+     * Creates a writer of the given format into the given file, replacing it
+     * if it exists.
+     */
+    public static RouteWriter open(Format format, Adjacency index, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.TRUNCATE_EXISTING,
+                                               StandardOpenOption.WRITE);
+        try {
+            return RouteWriter.create(format, index, channel);
+        }
+        catch (IOException|RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the route of a query, or that there is none if path is null.
+     *
+     * @param query number of the query.
+     * @param alternative number of the route among those of the query.
+     * @param status status of the search of the routes of the query.
+     * @param start index of the start station.
+     * @param end index of the end station.
+     * @param path route from start to end, or null.
+     */
+    protected abstract void writeRoute(long query, int alternative, SearchResult.Status status,
+                                       int start, int end, IndexedPath path) throws IOException;
+
+    /**
+     * Writes the cost of the best route of a query, or that there is none if
+     * length is negative.
+     */
+    public abstract void writeCost(long query, int start, int end, int length, int switches) throws IOException;
+
+    /**
+     * Writes the best route of a query, or that there is none if path is null.
+     */
+    public void writeRoute(long query, int start, int end, IndexedPath path) throws IOException {
+        this.checkPath(path);
+        this.writeRoute(query, 0, SearchResult.Status.COMPLETE, start, end, path);
+    }
+
+    /**
+     * Writes the routes of a query, numbered in iteration order, or that
+     * there is none if paths is empty.
+     */
+    public void writeAlternatives(long query, int start, int end, Collection<IndexedPath> paths) throws IOException {
+        this.writeAlternatives(query, start, end, paths, SearchResult.Status.COMPLETE);
+    }
+
+    /**
+     * Writes the routes found by a bounded search like
+     * writeAlternatives(long, int, int, Collection), with its status, so
+     * readers can tell the routes of a search stopped early from all of them.
+     */
+    public void writeAlternatives(long query, int start, int end,
+                                  SearchResult<? extends Collection<IndexedPath>> result) throws IOException {
+        this.writeAlternatives(query, start, end, result.getValue(), result.getStatus());
+    }
+
+    private void writeAlternatives(long query, int start, int end, Collection<IndexedPath> paths,
+                                   SearchResult.Status status) throws IOException {
+        if (paths.isEmpty()) {
+            this.writeRoute(query, 0, status, start, end, null);
+            return;
+        }
+        for (IndexedPath path : paths) {
+            this.checkPath(path);
+        }
+        int alternative = 0;
+        for (IndexedPath path : paths) {
+            this.writeRoute(query, alternative++, status, start, end, path);
+        }
+    }
+
+    /**
+     * Fails unless the path is null or over the graph of this writer, whose
+     * names were encoded by index.
+     */
+    private void checkPath(IndexedPath path) {
+        // Break early and loudly
+        if (path != null && path.getAdjacency() != this.index) {
+            throw new IllegalArgumentException("Path is not over the graph of the writer.");
+        }
+    }
+
+    /**
+     * Writes the costs from the origin of a finished search to each of the
+     * given ends, numbering the queries from firstQuery.
+     */
+    public void writeCosts(long firstQuery, int start, int[] ends, BestRouteSearch search) throws IOException {
+        for (int i = 0; i < ends.length; i++) {
+            int end = ends[i];
+            if (search.isReached(end)) {
+                this.writeCost(firstQuery + i, start, end, search.getLength(end), search.getSwitches(end));
+            } else {
+                this.writeCost(firstQuery + i, start, end, -1, -1);
+            }
+        }
+    }
+
+    protected static byte[] encode(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes room for the given number of bytes, unless it is more than the
+     * whole buffer.
+     */
+    private void reserve(int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) {
+            this.flush();
+        }
+    }
+
+    protected void put(byte b) throws IOException {
+        this.reserve(1);
+        this.buffer.put(b);
+    }
+
+    protected void put(byte[] bytes) throws IOException {
+        this.reserve(bytes.length);
+        if (bytes.length > this.buffer.remaining()) {
+            this.write(ByteBuffer.wrap(bytes));
+        } else {
+            this.buffer.put(bytes);
+        }
+    }
+
+    protected void putInt(int value) throws IOException {
+        this.reserve(4);
+        this.buffer.putInt(value);
+    }
+
+    protected void putLong(long value) throws IOException {
+        this.reserve(8);
+        this.buffer.putLong(value);
+    }
+
+    /**
+     * Writes the decimal digits of a number.
+     */
+    protected void putDecimal(long value) throws IOException {
+        if (value < 0) {
+            this.put((byte) '-');
+            // The digits of Long.MIN_VALUE are written from a negative number
+            int i = this.digits.length;
+            do {
+                this.digits[--i] = (byte) ('0' - value % 10);
+                value /= 10;
+            } while (value != 0);
+            this.putDigits(i);
+            return;
+        }
+        int i = this.digits.length;
+        do {
+            this.digits[--i] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        this.putDigits(i);
+    }
+
+    private void putDigits(int from) throws IOException {
+        this.reserve(this.digits.length - from);
+        this.buffer.put(this.digits, from, this.digits.length - from);
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            this.channel.write(bytes);
+        }
+    }
+
+    /**
+     * Writes the buffered records into the channel.
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        this.write(this.buffer);
+        this.buffer.clear();
+    }
+
+    /**
+     * Flushes the buffered records and closes the channel.
+     */
+    public void close() throws IOException {
+        try {
+            this.flush();
+        }
+        finally {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package MultigraphADT;
+
+
+/**
+ * Read-only view of a Multigraph with its nodes, labels and edges numbered
+ * densely, for searches and analyses that walk the whole graph.
+ *
+ * <p>
+ * Edges are laid out in compressed rows: the edges that depart from node v
+ * are numbered from getFirstEdge(v) up to, but not including, getEndEdge(v).
+ *
+ * <p>
+ * Searches that care about label switches work on states: a state is a node
+ * together with the label of an edge arriving at it. Every edge leads into
+ * exactly one state, shared by all the edges with the same end node and label.
+ */
+public interface Adjacency {
+    public int getNodeCount();
+
+    public int getEdgeCount();
+
+    public int getLabelCount();
+
+    public int getStateCount();
+
+    /**
+     * Returns the index of the given node, or -1 if it is not in the graph.
+     */
+    public int indexOf(Node node);
+
+    public Node getNode(int node);
+
+    /**
+     * Returns the name of the given node, without creating its Node object.
+     */
+    public String getName(int node);
+
+    public String getLabel(int label);
+
+    /**
+     * Returns the index of the first edge departing from the given node.
+     */
+    public int getFirstEdge(int node);
+
+    /**
+     * Returns the index following the last edge departing from the given node.
+     */
+    public int getEndEdge(int node);
+
+    public int getSource(int edge);
+
+    public int getTarget(int edge);
+
+    public int getEdgeLabel(int edge);
+
+    /**
+     * Returns the state the given edge leads into.
+     */
+    public int getEdgeState(int edge);
+
+    public int getStateNode(int state);
+
+    public int getStateLabel(int state);
+
+    /**
+     * Creates the Edge object for the given edge index.
+     */
+    public Edge getEdge(int edge);
+}
@@ -0,0 +1,188 @@
+package MultigraphADT;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+
+/**
+ * Read-only snapshot of a Multigraph kept in arrays on the heap.
+ * This lets whole-graph analyses walk the adjacency with array lookups instead
+ * of hashing nodes and copying edge sets.
+ * Nodes are numbered in the order of their identifiers and labels in
+ * alphabetical order, so two snapshots of the same graph are identical.
+ */
+public final class AdjacencyIndex implements Adjacency {
+    private final Node[] nodes;
+    private final Map<Node,Integer> indices;
+    private final String[] labels;
+    /**
+     * Row offsets, one per node plus a sentinel
+     */
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] edgeLabels;
+    private final int[] edgeStates;
+    private final int[] stateNodes;
+    private final int[] stateLabels;
+
+    private AdjacencyIndex(Node[] nodes, Map<Node,Integer> indices, String[] labels,
+                           int[] offsets, int[] sources, int[] targets, int[] edgeLabels,
+                           int[] edgeStates, int[] stateNodes, int[] stateLabels) {
+        this.nodes = nodes;
+        this.indices = indices;
+        this.labels = labels;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.edgeLabels = edgeLabels;
+        this.edgeStates = edgeStates;
+        this.stateNodes = stateNodes;
+        this.stateLabels = stateLabels;
+    }
+
+    /**
+     * Takes a snapshot of the given graph.
+     * Later changes to the graph are not reflected in the snapshot.
+     */
+    public static AdjacencyIndex of(Multigraph graph) {
+        Node[] nodes = graph.getNodes().toArray(new Node[0]);
+        Arrays.sort(nodes, Comparator.comparing(Node::getID));
+        Map<Node,Integer> indices = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            indices.put(nodes[i], i);
+        }
+
+        // Outgoing edges of every node, fetched once as the graph may copy them
+        Edge[][] rows = new Edge[nodes.length][];
+        Set<String> labelSet = new TreeSet<>();
+        int edgeCount = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            rows[i] = graph.getOutgoingEdges(nodes[i]).toArray(new Edge[0]);
+            for (Edge e : rows[i]) {
+                labelSet.add(e.getLabel());
+            }
+            edgeCount += rows[i].length;
+        }
+        String[] labels = labelSet.toArray(new String[0]);
+        Map<String,Integer> labelIndices = new HashMap<>();
+        for (int l = 0; l < labels.length; l++) {
+            labelIndices.put(labels[l], l);
+        }
+
+        int[] offsets = new int[nodes.length + 1];
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int[] edgeLabels = new int[edgeCount];
+        int e = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            offsets[i] = e;
+            // Keep rows in a stable order: by end node, then by label
+            Arrays.sort(rows[i], Comparator.comparing((Edge edge) -> indices.get(edge.getEndNode()))
+                                           .thenComparing(Edge::getLabel));
+            for (Edge edge : rows[i]) {
+                sources[e] = i;
+                targets[e] = indices.get(edge.getEndNode());
+                edgeLabels[e] = labelIndices.get(edge.getLabel());
+                e++;
+            }
+        }
+        offsets[nodes.length] = e;
+
+        // State of each edge: (end node, label) -> state
+        Map<Long,Integer> states = new HashMap<>();
+        int[] edgeStates = new int[edgeCount];
+        int[] stateNodes = new int[edgeCount];
+        int[] stateLabels = new int[edgeCount];
+        for (e = 0; e < edgeCount; e++) {
+            long key = (long) targets[e] * labels.length + edgeLabels[e];
+            Integer state = states.get(key);
+            if (state == null) {
+                state = states.size();
+                states.put(key, state);
+                stateNodes[state] = targets[e];
+                stateLabels[state] = edgeLabels[e];
+            }
+            edgeStates[e] = state;
+        }
+        return new AdjacencyIndex(nodes, indices, labels, offsets, sources, targets, edgeLabels,
+                                  edgeStates,
+                                  Arrays.copyOf(stateNodes, states.size()),
+                                  Arrays.copyOf(stateLabels, states.size()));
+    }
+
+    public int getNodeCount() {
+        return this.nodes.length;
+    }
+
+    public int getEdgeCount() {
+        return this.targets.length;
+    }
+
+    public int getLabelCount() {
+        return this.labels.length;
+    }
+
+    public int getStateCount() {
+        return this.stateNodes.length;
+    }
+
+    public int indexOf(Node node) {
+        Integer index = this.indices.get(node);
+        return index == null ? -1 : index;
+    }
+
+    public Node getNode(int node) {
+        return this.nodes[node];
+    }
+
+    public String getName(int node) {
+        return this.nodes[node].getName();
+    }
+
+    public String getLabel(int label) {
+        return this.labels[label];
+    }
+
+    public int getFirstEdge(int node) {
+        return this.offsets[node];
+    }
+
+    public int getEndEdge(int node) {
+        return this.offsets[node + 1];
+    }
+
+    public int getSource(int edge) {
+        return this.sources[edge];
+    }
+
+    public int getTarget(int edge) {
+        return this.targets[edge];
+    }
+
+    public int getEdgeLabel(int edge) {
+        return this.edgeLabels[edge];
+    }
+
+    public int getEdgeState(int edge) {
+        return this.edgeStates[edge];
+    }
+
+    public int getStateNode(int state) {
+        return this.stateNodes[state];
+    }
+
+    public int getStateLabel(int state) {
+        return this.stateLabels[state];
+    }
+
+    public Edge getEdge(int edge) {
+        return new IndexedEdge(this.nodes[this.sources[edge]],
+                               this.nodes[this.targets[edge]],
+                               this.labels[this.edgeLabels[edge]]);
+    }
+}
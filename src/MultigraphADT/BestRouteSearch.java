@@ -0,0 +1,219 @@
+package MultigraphADT;
+
+import java.util.Arrays;
+
+
+/**
+ * Finds the best paths from an origin to every node of an Adjacency, in the
+ * sense of Multigraph.searchBest(): the fewest edges first, then the fewest
+ * switches in edge labels.
+ *
+ * <p>
+ * Rather than enumerating every shortest path, it runs Dijkstra's algorithm
+ * over the (node, label) states of the Adjacency, with the number of edges and
+ * the number of switches packed as a single long cost. Switches are counted
+ * like searchBest() does: the label of the first edge counts as one.
+ *
+ * <p>
+ * Given Landmarks, searches towards a target expand states in order of cost
+ * plus a lower bound of the edges left (A*), so they reach the target after
+ * expanding mostly the states in its direction.
+ *
+ * <p>
+ * A search object can be reused for any number of origins, but not by several
+ * threads at once.
+ */
+public final class BestRouteSearch {
+    private static final long UNREACHED = Long.MAX_VALUE;
+    private static final long ONE_EDGE = 1L << 32;
+    private static final int ORIGIN = -1;
+
+    private final Adjacency index;
+    private final MinHeap heap;
+    private final long[] stateCost;
+    /**
+     * Edge through which each state is reached with its best cost
+     */
+    private final int[] stateParent;
+    /**
+     * State from which that edge is taken
+     */
+    private final int[] stateFrom;
+    private final long[] nodeCost;
+    /**
+     * State in which each node is reached with its best cost
+     */
+    private final int[] nodeState;
+    private Landmarks landmarks;
+    /**
+     * Lower bound of the edges from each node to the target, -1 if unknown
+     */
+    private int[] bound;
+    private int guidedTarget;
+    private int settled;
+
+    public BestRouteSearch(Adjacency index) {
+        this.index = index;
+        this.heap = new MinHeap();
+        this.stateCost = new long[index.getStateCount()];
+        this.stateParent = new int[index.getStateCount()];
+        this.stateFrom = new int[index.getStateCount()];
+        this.nodeCost = new long[index.getNodeCount()];
+        this.nodeState = new int[index.getNodeCount()];
+    }
+
+    /**
+     * Guides the following searches towards their targets with the given
+     * landmarks, or stops guiding them if null.
+     */
+    public void setLandmarks(Landmarks landmarks) {
+        // Break early and loudly
+        if (landmarks != null && !landmarks.fits(this.index)) {
+            throw new IllegalArgumentException("Landmarks do not match the graph.");
+        }
+        this.landmarks = landmarks;
+        if (landmarks != null && this.bound == null) {
+            this.bound = new int[this.index.getNodeCount()];
+        }
+    }
+
+    /**
+     * Searches the best paths from the given node to every other one.
+     */
+    public void search(int origin) {
+        this.search(origin, ORIGIN);
+    }
+
+    /**
+     * Searches the best path from the given node to the target, stopping as
+     * soon as it is found. Other nodes may be left unreached. A negative
+     * target searches every node.
+     */
+    public void search(int origin, int target) {
+        this.search(origin, target, null);
+    }
+
+    /**
+     * Searches the best path from the given node to the target like
+     * search(int, int), stopping early if any of the limits is reached.
+     * Nodes reached before stopping have their best paths.
+     *
+     * @param limits limits of the search, or null for none.
+     * @return path to the target, or null if it was not reached.
+     */
+    public SearchResult<IndexedPath> search(int origin, int target, SearchLimits limits) {
+        SearchBudget budget = new SearchBudget(limits);
+        Arrays.fill(this.stateCost, UNREACHED);
+        Arrays.fill(this.nodeCost, UNREACHED);
+        this.heap.clear();
+        this.settled = 0;
+        this.guidedTarget = this.landmarks == null ? ORIGIN : target;
+        if (this.guidedTarget >= 0) {
+            Arrays.fill(this.bound, -1);
+        }
+        this.nodeCost[origin] = 0;
+        this.nodeState[origin] = ORIGIN;
+        if (origin == target) return budget.result(this.getPath(target));
+
+        for (int e = this.index.getFirstEdge(origin); e < this.index.getEndEdge(origin); e++) {
+            this.relax(this.index.getEdgeState(e), e, ORIGIN, ONE_EDGE + 1);
+        }
+        while (!this.heap.isEmpty()) {
+            int state = this.heap.peekValue();
+            int node = this.index.getStateNode(state);
+            long cost = this.heap.peekKey() - this.getPotential(node);
+            this.heap.pop();
+            // Skip states already settled with a better cost
+            if (cost > this.stateCost[state]) continue;
+            if (!budget.expand()) break;
+            this.settled++;
+
+            int label = this.index.getStateLabel(state);
+            // States come out in order of cost, the first one is the best
+            if (this.nodeCost[node] == UNREACHED) {
+                this.nodeCost[node] = cost;
+                this.nodeState[node] = state;
+                if (node == target) break;
+            }
+            for (int e = this.index.getFirstEdge(node); e < this.index.getEndEdge(node); e++) {
+                long next = cost + ONE_EDGE + (this.index.getEdgeLabel(e) == label ? 0 : 1);
+                this.relax(this.index.getEdgeState(e), e, state, next);
+            }
+        }
+        return budget.result(target < 0 ? null : this.getPath(target));
+    }
+
+    private void relax(int state, int edge, int from, long cost) {
+        if (cost < this.stateCost[state]) {
+            long potential = this.getPotential(this.index.getTarget(edge));
+            // The landmarks prove there is no way to the target from there
+            if (potential == UNREACHED) return;
+            this.stateCost[state] = cost;
+            this.stateParent[state] = edge;
+            this.stateFrom[state] = from;
+            this.heap.push(cost + potential, state);
+        }
+    }
+
+    /**
+     * Returns the lower bound of the cost from the given node to the target,
+     * 0 if the search is not guided, or UNREACHED if there is no way.
+     * Only edges are bounded, switches are not.
+     */
+    private long getPotential(int node) {
+        if (this.guidedTarget < 0) {
+            return 0;
+        }
+        if (this.bound[node] < 0) {
+            this.bound[node] = this.landmarks.getLowerBound(node, this.guidedTarget);
+        }
+        return this.bound[node] == Landmarks.UNREACHED ? UNREACHED : (long) this.bound[node] << 32;
+    }
+
+    /**
+     * Returns the number of states expanded by the last search.
+     */
+    public int getSettledCount() {
+        return this.settled;
+    }
+
+    public boolean isReached(int node) {
+        return this.nodeCost[node] != UNREACHED;
+    }
+
+    /**
+     * Returns the number of edges of the best path to the given node.
+     */
+    public int getLength(int node) {
+        return (int) (this.nodeCost[node] >>> 32);
+    }
+
+    /**
+     * Returns the number of label switches of the best path to the given node.
+     */
+    public int getSwitches(int node) {
+        return (int) this.nodeCost[node];
+    }
+
+    /**
+     * Returns the best path to the given node, or null if it is not reached.
+     */
+    public IndexedPath getPath(int node) {
+        if (!this.isReached(node)) {
+            return null;
+        }
+        int length = this.getLength(node);
+        int[] nodes = new int[length + 1];
+        int[] labels = new int[length];
+        nodes[length] = node;
+        // Fill the path backwards along the chain of states
+        int k = length;
+        for (int state = this.nodeState[node]; state != ORIGIN; state = this.stateFrom[state]) {
+            int edge = this.stateParent[state];
+            k--;
+            nodes[k] = this.index.getSource(edge);
+            labels[k] = this.index.getEdgeLabel(edge);
+        }
+        return new IndexedPath(this.index, nodes, labels);
+    }
+}
@@ -0,0 +1,335 @@
+package MultigraphADT;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Network criticality scores for every node and edge of a graph.
+ *
+ * <p>
+ * Betweenness counts, for every ordered pair of distinct nodes, the fraction of
+ * shortest paths between them that go through a node or edge. It is computed
+ * with Brandes' accumulation from every source node; sources are split across
+ * a fork/join pool and shortest paths are counted, never enumerated.
+ *
+ * <p>
+ * Reachability loss is the number of ordered pairs of nodes that can no longer
+ * reach each other once a node or a segment is removed. Pairs involving the
+ * removed node itself are not counted. It treats the graph as undirected, which
+ * holds for any map built with addBidirectionalEdge(), and is computed in a
+ * single depth-first pass looking for articulation nodes and bridges.
+ */
+public final class CriticalityAnalysis {
+    private final Adjacency index;
+    private final double[] nodeBetweenness;
+    private final double[] edgeBetweenness;
+    private final long[] nodeReachabilityLoss;
+    private final long[] edgeReachabilityLoss;
+
+    private CriticalityAnalysis(Adjacency index,
+                                double[] nodeBetweenness, double[] edgeBetweenness,
+                                long[] nodeReachabilityLoss, long[] edgeReachabilityLoss) {
+        this.index = index;
+        this.nodeBetweenness = nodeBetweenness;
+        this.edgeBetweenness = edgeBetweenness;
+        this.nodeReachabilityLoss = nodeReachabilityLoss;
+        this.edgeReachabilityLoss = edgeReachabilityLoss;
+    }
+
+    /**
+     * Analyses the given graph using the common fork/join pool.
+     */
+    public static CriticalityAnalysis analyse(Multigraph graph) {
+        return CriticalityAnalysis.analyse(AdjacencyIndex.of(graph), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analyses the given graph view using the given fork/join pool.
+     */
+    public static CriticalityAnalysis analyse(Adjacency index, ForkJoinPool pool) {
+        // Enough chunks to keep every worker busy, few enough to bound the
+        // number of accumulators alive at the same time
+        int chunks = Math.max(1, pool.getParallelism() * 4);
+        int threshold = Math.max(1, (index.getNodeCount() + chunks - 1) / chunks);
+        Accumulator betweenness = pool.invoke(new BetweennessTask(index, 0, index.getNodeCount(), threshold));
+
+        long[] nodeLoss = new long[index.getNodeCount()];
+        long[] edgeLoss = new long[index.getEdgeCount()];
+        new ReachabilityLoss(index, nodeLoss, edgeLoss).run();
+
+        return new CriticalityAnalysis(index, betweenness.nodes, betweenness.edges, nodeLoss, edgeLoss);
+    }
+
+    /**
+     * Returns the graph view the node and edge indices refer to.
+     */
+    public Adjacency getIndex() {
+        return this.index;
+    }
+
+    public double getNodeBetweenness(int node) {
+        return this.nodeBetweenness[node];
+    }
+
+    public double getEdgeBetweenness(int edge) {
+        return this.edgeBetweenness[edge];
+    }
+
+    public long getNodeReachabilityLoss(int node) {
+        return this.nodeReachabilityLoss[node];
+    }
+
+    public long getEdgeReachabilityLoss(int edge) {
+        return this.edgeReachabilityLoss[edge];
+    }
+
+    /**
+     * Betweenness sums of a range of sources.
+     */
+    private static final class Accumulator {
+        private final double[] nodes;
+        private final double[] edges;
+
+        private Accumulator(int nodeCount, int edgeCount) {
+            this.nodes = new double[nodeCount];
+            this.edges = new double[edgeCount];
+        }
+
+        private Accumulator add(Accumulator other) {
+            for (int i = 0; i < this.nodes.length; i++) this.nodes[i] += other.nodes[i];
+            for (int i = 0; i < this.edges.length; i++) this.edges[i] += other.edges[i];
+            return this;
+        }
+    }
+
+    /**
+     * Accumulates the betweenness of the sources in [from, to), splitting the
+     * range in halves until it is no larger than the threshold.
+     */
+    private static final class BetweennessTask extends RecursiveTask<Accumulator> {
+        public static final long serialVersionUID = 1L;
+        private final Adjacency index;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private BetweennessTask(Adjacency index, int from, int to, int threshold) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (this.to - this.from > this.threshold) {
+                int middle = (this.from + this.to) >>> 1;
+                BetweennessTask left = new BetweennessTask(this.index, this.from, middle, this.threshold);
+                BetweennessTask right = new BetweennessTask(this.index, middle, this.to, this.threshold);
+                left.fork();
+                Accumulator result = right.compute();
+                return result.add(left.join());
+            }
+
+            int n = this.index.getNodeCount();
+            Accumulator result = new Accumulator(n, this.index.getEdgeCount());
+            // Per source workspace, reused across the sources of this range
+            int[] distance = new int[n];
+            double[] paths = new double[n];
+            double[] dependency = new double[n];
+            int[] order = new int[n];
+            Arrays.fill(distance, -1);
+
+            for (int source = this.from; source < this.to; source++) {
+                // Breadth-first search counting the shortest paths to each node,
+                // the queue doubles as the list of nodes by distance
+                int head = 0;
+                int tail = 0;
+                order[tail++] = source;
+                distance[source] = 0;
+                paths[source] = 1;
+                while (head < tail) {
+                    int v = order[head++];
+                    for (int e = this.index.getFirstEdge(v); e < this.index.getEndEdge(v); e++) {
+                        int w = this.index.getTarget(e);
+                        if (distance[w] < 0) {
+                            distance[w] = distance[v] + 1;
+                            order[tail++] = w;
+                        }
+                        if (distance[w] == distance[v] + 1) {
+                            paths[w] += paths[v];
+                        }
+                    }
+                }
+
+                // Accumulate dependencies from the farthest nodes back
+                for (int i = tail - 1; i >= 0; i--) {
+                    int v = order[i];
+                    for (int e = this.index.getFirstEdge(v); e < this.index.getEndEdge(v); e++) {
+                        int w = this.index.getTarget(e);
+                        if (distance[w] == distance[v] + 1) {
+                            double share = paths[v] / paths[w] * (1 + dependency[w]);
+                            result.edges[e] += share;
+                            dependency[v] += share;
+                        }
+                    }
+                    if (v != source) {
+                        result.nodes[v] += dependency[v];
+                    }
+                }
+
+                // Only the reached nodes have to be reset
+                for (int i = 0; i < tail; i++) {
+                    int v = order[i];
+                    distance[v] = -1;
+                    paths[v] = 0;
+                    dependency[v] = 0;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Finds articulation nodes and bridges with an iterative depth-first
+     * search, so that long lines do not overflow the call stack.
+     */
+    private static final class ReachabilityLoss {
+        private final Adjacency index;
+        private final long[] nodeLoss;
+        private final long[] edgeLoss;
+
+        private ReachabilityLoss(Adjacency index, long[] nodeLoss, long[] edgeLoss) {
+            this.index = index;
+            this.nodeLoss = nodeLoss;
+            this.edgeLoss = edgeLoss;
+        }
+
+        /**
+         * Returns the size of the connected component of every node.
+         */
+        private int[] componentSizes() {
+            int n = this.index.getNodeCount();
+            int[] component = new int[n];
+            int[] queue = new int[n];
+            Arrays.fill(component, -1);
+            int[] sizes = new int[n];
+            for (int root = 0; root < n; root++) {
+                if (component[root] >= 0) continue;
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = root;
+                component[root] = root;
+                while (head < tail) {
+                    int v = queue[head++];
+                    for (int e = this.index.getFirstEdge(v); e < this.index.getEndEdge(v); e++) {
+                        int w = this.index.getTarget(e);
+                        if (component[w] < 0) {
+                            component[w] = root;
+                            queue[tail++] = w;
+                        }
+                    }
+                }
+                for (int i = 0; i < tail; i++) {
+                    sizes[queue[i]] = tail;
+                }
+            }
+            return sizes;
+        }
+
+        /**
+         * Finds the edge going from the given node to the other one with the
+         * given label.
+         */
+        private int findEdge(int from, int to, int label) {
+            for (int e = this.index.getFirstEdge(from); e < this.index.getEndEdge(from); e++) {
+                if (this.index.getTarget(e) == to && this.index.getEdgeLabel(e) == label) return e;
+            }
+            return -1;
+        }
+
+        private void run() {
+            int n = this.index.getNodeCount();
+            int[] componentSize = this.componentSizes();
+            int[] discovery = new int[n];
+            int[] low = new int[n];
+            int[] subtree = new int[n];
+            // Edge through which each node was discovered, -1 for roots
+            int[] treeEdge = new int[n];
+            // Next edge to explore from each node
+            int[] cursor = new int[n];
+            // Whether the twin of the tree edge has already been skipped
+            boolean[] skippedTwin = new boolean[n];
+            // Sizes of the pieces a node would split its component into
+            long[] pieces = new long[n];
+            long[] squaredPieces = new long[n];
+            int[] stack = new int[n];
+            Arrays.fill(discovery, -1);
+            int time = 0;
+
+            for (int root = 0; root < n; root++) {
+                if (discovery[root] >= 0) continue;
+                int top = 0;
+                stack[top++] = root;
+                discovery[root] = low[root] = time++;
+                treeEdge[root] = -1;
+                cursor[root] = this.index.getFirstEdge(root);
+                subtree[root] = 1;
+
+                while (top > 0) {
+                    int v = stack[top - 1];
+                    if (cursor[v] < this.index.getEndEdge(v)) {
+                        int e = cursor[v]++;
+                        int w = this.index.getTarget(e);
+                        int parentEdge = treeEdge[v];
+                        // Going back through the reverse of the tree edge is not
+                        // a cycle, other lines between the same nodes are
+                        if (parentEdge >= 0 && !skippedTwin[v]
+                            && w == this.index.getSource(parentEdge)
+                            && this.index.getEdgeLabel(e) == this.index.getEdgeLabel(parentEdge)) {
+                            skippedTwin[v] = true;
+                            continue;
+                        }
+                        if (discovery[w] < 0) {
+                            discovery[w] = low[w] = time++;
+                            treeEdge[w] = e;
+                            cursor[w] = this.index.getFirstEdge(w);
+                            subtree[w] = 1;
+                            stack[top++] = w;
+                        } else {
+                            low[v] = Math.min(low[v], discovery[w]);
+                        }
+                        continue;
+                    }
+
+                    // Every edge of v has been explored
+                    top--;
+                    int size = componentSize[v];
+                    long others = size - 1;
+                    long rest = others - pieces[v];
+                    this.nodeLoss[v] = others * others - squaredPieces[v] - rest * rest;
+
+                    int e = treeEdge[v];
+                    if (e < 0) continue;
+                    int parent = this.index.getSource(e);
+                    subtree[parent] += subtree[v];
+                    low[parent] = Math.min(low[parent], low[v]);
+                    // The parent separates v's subtree from the rest
+                    if (low[v] >= discovery[parent] || treeEdge[parent] < 0) {
+                        pieces[parent] += subtree[v];
+                        squaredPieces[parent] += (long) subtree[v] * subtree[v];
+                    }
+                    // The edge is the only connection to v's subtree
+                    if (low[v] > discovery[parent]) {
+                        long loss = 2L * subtree[v] * (size - subtree[v]);
+                        this.edgeLoss[e] = loss;
+                        int twin = this.findEdge(v, parent, this.index.getEdgeLabel(e));
+                        if (twin >= 0) this.edgeLoss[twin] = loss;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package MultigraphADT;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 
@@ -18,10 +19,36 @@ public class IndexedMultigraph implements Multigraph {
      */
     private Map<Node, Set<Edge>> edges;
 
+    /**
+     * Dense snapshot of the edges, built on demand and dropped on every change
+     */
+    private AdjacencyIndex index;
+
+    /**
+     * Landmarks guiding the searches, dropped on every change
+     */
+    private Landmarks landmarks;
+
+    /**
+     * Workspace of reachability searches, kept between them
+     */
+    private final AtomicReference<ReachabilitySearch> reachability = new AtomicReference<>();
+
     public IndexedMultigraph() {
         this.edges = new HashMap<>();
     }
 
+    /**
+     * Returns an up to date snapshot of the graph, the one the paths found by
+     * its searches refer to. The snapshot is replaced when the graph changes.
+     */
+    public AdjacencyIndex getAdjacency() {
+        if (this.index == null) {
+            this.index = AdjacencyIndex.of(this);
+        }
+        return this.index;
+    }
+
     public Node createNode(String id, String name) {
         return new IndexedNode(id,name);
     }
@@ -50,9 +77,13 @@ public class IndexedMultigraph implements Multigraph {
         if (node == null) {
             throw new IllegalArgumentException("Cannot add a null pointer as node.");
         }
-        // checks if the node is already in the map. If not, adds a node, computes lambda 
-        // expression taking node as a parameter and returning new empty set.
-    	this.edges.computeIfAbsent(node, n -> new HashSet<>());
+        // checks if the node is already in the map. If not, adds a node with
+        // an empty set of edges.
+        if (!this.edges.containsKey(node)) {
+            this.edges.put(node, new HashSet<>());
+            this.index = null;
+            this.landmarks = null;
+        }
     }
 
     public void addEdge(Edge edge) {
@@ -71,7 +102,10 @@ public class IndexedMultigraph implements Multigraph {
     	 * Current edge starting node as the key for the map
     	 * Then add the edge to the set under this key
     	 */
-        this.edges.get(edge.getStartNode()).add(edge);
+        if (this.edges.get(edge.getStartNode()).add(edge)) {
+            this.index = null;
+            this.landmarks = null;
+        }
     }
 
     public void addBidirectionalEdge(Edge edge) {
@@ -80,107 +114,46 @@ public class IndexedMultigraph implements Multigraph {
     }
 
     /**
-     * Returns the set of all possible paths with the given start and end nodes.
-     *
-     * @param parents a map that represents for each node k all the edges ending at k.
-     * @param start   the node at which all paths have to start.
-     * @param end     the node at which all paths have to end.
+     * Guides searchShortest() and searchBest() towards the end node with the
+     * given landmarks, selected on this graph, until the graph changes.
+     * Null goes back to plain searches.
      */
-    private Set<List<Edge>> backtrack(Map<Node,Set<Edge>> parents, Node start, Node end) {
-        Set<List<Edge>> paths = new HashSet<>();
-
-        // We arrived at our destination
-        if (start.equals(end)) {
-            paths.add(new LinkedList<>());
+    public void setLandmarks(Landmarks landmarks) {
+        // Break early and loudly
+        if (landmarks != null && !landmarks.fits(this.getAdjacency())) {
+            throw new IllegalArgumentException("Landmarks do not match the graph.");
         }
+        this.landmarks = landmarks;
+    }
 
-        Set<Edge> endParents = parents.get(end);
+    /**
+     * Returns the landmarks guiding the searches, or null.
+     */
+    public Landmarks getLandmarks() {
+        return this.landmarks;
+    }
 
-        // There is no way of getting there
-        if (endParents == null) {
-            return paths;
-        }
+    public Set<IndexedPath> searchShortest(Node startNode, Node endNode) {
+        return this.searchShortest(startNode, endNode, null).getValue();
+    }
 
-        // For every edge that ends at this node
-        for (Edge e : endParents) {
-            // Get all the possible paths that get to the start of that edge
-            Set<List<Edge>> preceding = this.backtrack(parents, start, e.getStartNode());
-            // Append to each of those paths the edge that ends in the target
-            for (List<Edge> path : preceding) {
-                path.add(e);
-                // Add to our bag of results
-                paths.add(path);
-            }
-        }
-        return paths;
-    }
-
-    public Set<List<Edge>> searchShortest(Node startNode, Node endNode) {
-        // Keep track of the already evaluated nodes
-        Set<Node> evaluated = new HashSet<>();
-
-        // Keep track of the edges that got us to each node
-        Map<Node,Set<Edge>> parents = new HashMap<>();
-
-        // Keep track of the nodes we have to check the next batch
-        Set<Node> batch = new HashSet<>();
-
-        // We have to start somewhere
-        batch.add(startNode);
-
-        // Each loop evaluates a set of nodes at distance n
-        while (!batch.isEmpty()) {
-            Set<Node> nextBatch = new HashSet<>();
-            boolean lastBatch = false;
-            for (Node node : batch) {
-                evaluated.add(node);
-                // Evaluate possible candidates for the next batch
-                for (Edge edge : this.getOutgoingEdges(node)) {
-                    Node next = edge.getEndNode();
-                    // Prevent evaluating already evaluated end nodes
-                    if (evaluated.contains(next)) continue;
-                    // Mark this batch as the last one if the end node is found
-                    if (next.equals(endNode)) lastBatch = true;
-                    // Fill next batch if this isn't the last one
-                    if (!lastBatch) nextBatch.add(next);
-                    // Annotate the edge we took to arrive to this node
-                    parents.computeIfAbsent(next, n -> new HashSet<>()).add(edge);
-                }
-            }
-            batch = nextBatch;
-        }
-        return this.backtrack(parents, startNode, endNode);
+    public SearchResult<Set<IndexedPath>> searchShortest(Node startNode, Node endNode, SearchLimits limits) {
+        return ShortestPathSearch.searchShortest(this.getAdjacency(), this.landmarks, startNode, endNode, limits);
     }
 
-    /**
-     * Returns the number of switches in the edge labels of a path.
-     */
-    private int getNumberOfSwitches(List<Edge> path) {
-        int switches = 0;
-        String previousLabel = null;
-        for (Edge e : path) {
-            if (!e.getLabel().equals(previousLabel)) {
-                switches++;
-                previousLabel = e.getLabel();
-            }
-        }
-        return switches;
+    public IndexedPath searchBest(Node startNode, Node endNode) {
+        return this.searchBest(startNode, endNode, null).getValue();
     }
 
-    /**
-     * Returns the path with less changes in edge labels.
-     *
-     * @param paths the set of paths to evaluate.
-     */
-    private List<Edge> getLessChanging(Set<List<Edge>> paths) {
-        return paths.stream()
-                    .min((a, b) -> Integer.compare(this.getNumberOfSwitches(a),
-                                                   this.getNumberOfSwitches(b)))
-                    .orElse(null);
+    public SearchResult<IndexedPath> searchBest(Node startNode, Node endNode, SearchLimits limits) {
+        return ShortestPathSearch.searchBest(this.getAdjacency(), this.landmarks, startNode, endNode, limits);
+    }
+
+    public Set<Node> searchReachable(Node origin, int maxEdges, int maxSwitches) {
+        return this.searchReachable(Collections.singletonList(origin), maxEdges, maxSwitches).get(origin);
     }
 
-    public List<Edge> searchBest(Node startNode, Node endNode) {
-        Set<List<Edge>> shortestPaths = this.searchShortest(startNode, endNode);
-        return this.getLessChanging(shortestPaths);
+    public Map<Node,Set<Node>> searchReachable(Collection<Node> origins, int maxEdges, int maxSwitches) {
+        return ReachabilitySearch.search(this.getAdjacency(), this.reachability, origins, maxEdges, maxSwitches);
     }
 }
@@ -0,0 +1,145 @@
+package MultigraphADT;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+
+/**
+ * A path found by a search, stored as the indices of its nodes and labels in
+ * the Adjacency it was found in.
+ *
+ * <p>
+ * The path is a List of edges, but Edge objects are only created when they are
+ * asked for. The path is also split in legs: runs of consecutive edges with the
+ * same label, computed once when the path is created, so directions can be
+ * given leg by leg without comparing labels again.
+ *
+ * <p>
+ * Paths are immutable.
+ */
+public final class IndexedPath extends AbstractList<Edge> {
+    private final Adjacency index;
+    /**
+     * Nodes along the path, one more than edges
+     */
+    private final int[] nodes;
+    private final int[] labels;
+    /**
+     * First edge of each leg, plus the number of edges as a sentinel
+     */
+    private final int[] legs;
+    private int hash;
+
+    /**
+     * Creates a path from its nodes and the labels of the edges between them.
+     */
+    IndexedPath(Adjacency index, int[] nodes, int[] labels) {
+        this.index = index;
+        this.nodes = nodes;
+        this.labels = labels;
+
+        int count = 0;
+        for (int i = 0; i < labels.length; i++) {
+            if (i == 0 || labels[i] != labels[i - 1]) count++;
+        }
+        this.legs = new int[count + 1];
+        count = 0;
+        for (int i = 0; i < labels.length; i++) {
+            if (i == 0 || labels[i] != labels[i - 1]) this.legs[count++] = i;
+        }
+        this.legs[count] = labels.length;
+    }
+
+    /**
+     * Returns the graph view the indices of this path refer to.
+     */
+    public Adjacency getAdjacency() {
+        return this.index;
+    }
+
+    @Override
+    public int size() {
+        return this.labels.length;
+    }
+
+    @Override
+    public Edge get(int i) {
+        if (i < 0 || i >= this.labels.length) {
+            throw new IndexOutOfBoundsException(Integer.toString(i));
+        }
+        return new IndexedEdge(this.index.getNode(this.nodes[i]),
+                               this.index.getNode(this.nodes[i + 1]),
+                               this.index.getLabel(this.labels[i]));
+    }
+
+    /**
+     * Returns the index of the i-th node along the path, from 0 to size().
+     */
+    public int getNodeIndex(int i) {
+        return this.nodes[i];
+    }
+
+    /**
+     * Returns the index of the label of the i-th edge.
+     */
+    public int getLabelIndex(int i) {
+        return this.labels[i];
+    }
+
+    public Node getStartNode() {
+        return this.index.getNode(this.nodes[0]);
+    }
+
+    public Node getEndNode() {
+        return this.index.getNode(this.nodes[this.nodes.length - 1]);
+    }
+
+    /**
+     * Returns the number of runs of edges with the same label.
+     * This is the number of switches as counted by Multigraph.searchBest().
+     */
+    public int getLegCount() {
+        return this.legs.length - 1;
+    }
+
+    /**
+     * Returns the index of the first edge of the given leg.
+     */
+    public int getLegStart(int leg) {
+        return this.legs[leg];
+    }
+
+    /**
+     * Returns the index following the last edge of the given leg.
+     */
+    public int getLegEnd(int leg) {
+        return this.legs[leg + 1];
+    }
+
+    /**
+     * Returns the index of the label of the given leg.
+     */
+    public int getLegLabel(int leg) {
+        return this.labels[this.legs[leg]];
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as any other list of the same edges, computed once
+        if (this.hash == 0) {
+            this.hash = super.hashCode();
+        }
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof IndexedPath && ((IndexedPath) obj).index == this.index) {
+            IndexedPath other = (IndexedPath) obj;
+            // All paths without edges are the same empty list
+            if (this.labels.length == 0) return other.labels.length == 0;
+            return Arrays.equals(this.nodes, other.nodes) && Arrays.equals(this.labels, other.labels);
+        }
+        return super.equals(obj);
+    }
+}
@@ -0,0 +1,448 @@
+package MultigraphADT;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * Distances from and to a few landmark nodes, for goal-directed searches.
+ *
+ * <p>
+ * By the triangle inequality, the number of edges from a node v to a target t
+ * is at least d(L, t) - d(L, v) and at least d(v, L) - d(t, L) for every
+ * landmark L. Searches use the largest of those bounds to expand the nodes
+ * that lead towards the target first (A*, landmarks and triangle inequality),
+ * and to skip the nodes that cannot reach it at all.
+ *
+ * <p>
+ * Distances are kept in two int arrays, node by node, so the bounds of a node
+ * are read from consecutive memory. Landmarks belong to the graph they were
+ * selected on, and can be written to a file and read back as long as the graph
+ * does not change; a fingerprint of the graph is kept with them to tell.
+ */
+public final class Landmarks {
+    /**
+     * Distance to and from nodes that cannot be reached
+     */
+    public static final int UNREACHED = Integer.MAX_VALUE;
+
+    private static final int MAGIC = 0x4c4d4b32;
+    /**
+     * Bytes before the landmarks in a file: magic, fingerprint and counts
+     */
+    private static final int HEADER_SIZE = 24;
+    private static final long SEED = 308;
+
+    /**
+     * How the landmarks are chosen.
+     */
+    public enum Selection {
+        /**
+         * Each landmark is the node farthest from the ones already chosen.
+         */
+        FARTHEST,
+        /**
+         * Each landmark is a leaf of the shortest path tree of a random node,
+         * in the region where the other landmarks give the worst bounds.
+         */
+        AVOID
+    }
+
+    private final int nodeCount;
+    private final int edgeCount;
+    /**
+     * Hash of the graph the landmarks were selected on, see fingerprint()
+     */
+    private final long fingerprint;
+    /**
+     * Last Adjacency found to fit, so a graph is only hashed once
+     */
+    private volatile Adjacency fitted;
+    private final int[] landmarks;
+    /**
+     * Distance from each landmark to each node, in [node * count + landmark]
+     */
+    private final int[] from;
+    /**
+     * Distance from each node to each landmark, in [node * count + landmark]
+     */
+    private final int[] to;
+
+    private Landmarks(Adjacency index, long fingerprint, int[] landmarks, int[] from, int[] to) {
+        this.nodeCount = index.getNodeCount();
+        this.edgeCount = index.getEdgeCount();
+        this.fingerprint = fingerprint;
+        this.fitted = index;
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Selects the given number of landmarks with the FARTHEST heuristic.
+     */
+    public static Landmarks select(Adjacency index, int count) {
+        return Landmarks.select(index, count, Selection.FARTHEST);
+    }
+
+    /**
+     * Selects the given number of landmarks, or as many as nodes if there are
+     * fewer, and computes the distances from and to them.
+     */
+    public static Landmarks select(Adjacency index, int count, Selection selection) {
+        // Break early and loudly
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one landmark is needed.");
+        }
+        if (selection == null) {
+            throw new IllegalArgumentException("Cannot select landmarks without a heuristic.");
+        }
+        return new Selector(index).select(Math.min(count, index.getNodeCount()), selection);
+    }
+
+    public int getCount() {
+        return this.landmarks.length;
+    }
+
+    /**
+     * Returns the index of the given landmark node.
+     */
+    public int getLandmark(int i) {
+        return this.landmarks[i];
+    }
+
+    /**
+     * Returns the number of edges from the given landmark to the given node,
+     * or UNREACHED.
+     */
+    public int getDistanceFrom(int landmark, int node) {
+        return this.from[node * this.landmarks.length + landmark];
+    }
+
+    /**
+     * Returns the number of edges from the given node to the given landmark,
+     * or UNREACHED.
+     */
+    public int getDistanceTo(int node, int landmark) {
+        return this.to[node * this.landmarks.length + landmark];
+    }
+
+    /**
+     * Returns a lower bound of the number of edges from node to target, or
+     * UNREACHED if the landmarks prove there is no path.
+     */
+    public int getLowerBound(int node, int target) {
+        int count = this.landmarks.length;
+        int v = node * count;
+        int t = target * count;
+        int bound = 0;
+        for (int i = 0; i < count; i++) {
+            // A landmark reaching the node but not the target proves the
+            // node does not reach the target, and the other way around
+            if (this.from[v + i] != UNREACHED) {
+                if (this.from[t + i] == UNREACHED) return UNREACHED;
+                bound = Math.max(bound, this.from[t + i] - this.from[v + i]);
+            }
+            if (this.to[t + i] != UNREACHED) {
+                if (this.to[v + i] == UNREACHED) return UNREACHED;
+                bound = Math.max(bound, this.to[v + i] - this.to[t + i]);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Returns whether these landmarks were selected on the given graph, with
+     * its nodes numbered the same way.
+     */
+    public boolean fits(Adjacency index) {
+        if (index == this.fitted) {
+            return true;
+        }
+        if (index.getNodeCount() != this.nodeCount || index.getEdgeCount() != this.edgeCount
+                || Landmarks.fingerprint(index) != this.fingerprint) {
+            return false;
+        }
+        this.fitted = index;
+        return true;
+    }
+
+    /**
+     * Hashes the node identifiers in index order and the rows of edges, with
+     * their targets and labels, so that landmarks are not used on a changed
+     * graph, nor on the same graph numbered differently.
+     */
+    private static long fingerprint(Adjacency index) {
+        long[] labelHashes = new long[index.getLabelCount()];
+        for (int l = 0; l < labelHashes.length; l++) {
+            labelHashes[l] = index.getLabel(l).hashCode();
+        }
+        long hash = mix(0xcbf29ce484222325L, index.getNodeCount());
+        for (int v = 0; v < index.getNodeCount(); v++) {
+            hash = mix(hash, index.getNode(v).getID().hashCode());
+            hash = mix(hash, index.getEndEdge(v));
+            for (int e = index.getFirstEdge(v); e < index.getEndEdge(v); e++) {
+                hash = mix(hash, index.getTarget(e));
+                hash = mix(hash, labelHashes[index.getEdgeLabel(e)]);
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    /**
+     * Writes the landmarks into the given file, replacing it if it exists.
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(this.fingerprint);
+            out.writeInt(this.nodeCount);
+            out.writeInt(this.edgeCount);
+            out.writeInt(this.landmarks.length);
+            for (int landmark : this.landmarks) {
+                out.writeInt(landmark);
+            }
+            for (int distance : this.from) {
+                out.writeInt(distance);
+            }
+            for (int distance : this.to) {
+                out.writeInt(distance);
+            }
+        }
+    }
+
+    /**
+     * Reads landmarks written by write() for the given graph.
+     *
+     * @throws IOException if the file cannot be read or was written for a
+     * different graph.
+     */
+    public static Landmarks read(Adjacency index, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a landmarks file.");
+            }
+            long fingerprint = in.readLong();
+            int nodeCount = in.readInt();
+            int edgeCount = in.readInt();
+            int count = in.readInt();
+            if (nodeCount != index.getNodeCount() || edgeCount != index.getEdgeCount()
+                    || count < 1 || count > nodeCount || fingerprint != Landmarks.fingerprint(index)) {
+                throw new IOException("Landmarks do not match the graph.");
+            }
+            // Check the size before trusting the counts with an allocation
+            long cells = (long) nodeCount * count;
+            if (cells > Integer.MAX_VALUE || Files.size(file) != HEADER_SIZE + 4L * count + 8L * cells) {
+                throw new IOException("Landmarks file has the wrong size.");
+            }
+            int[] landmarks = new int[count];
+            for (int i = 0; i < count; i++) {
+                landmarks[i] = in.readInt();
+            }
+            int[] from = new int[(int) cells];
+            int[] to = new int[(int) cells];
+            for (int i = 0; i < from.length; i++) {
+                from[i] = in.readInt();
+            }
+            for (int i = 0; i < to.length; i++) {
+                to[i] = in.readInt();
+            }
+            return new Landmarks(index, fingerprint, landmarks, from, to);
+        }
+    }
+
+    /**
+     * Chooses landmarks and computes their distances with breadth-first
+     * searches, forwards over the Adjacency and backwards over its transpose.
+     */
+    private static final class Selector {
+        private final Adjacency index;
+        private final int n;
+        /**
+         * Transposed rows: the sources of the edges ending at each node
+         */
+        private final int[] reverseFirst;
+        private final int[] reverseSources;
+        private final int[] queue;
+
+        private Selector(Adjacency index) {
+            this.index = index;
+            this.n = index.getNodeCount();
+            this.reverseFirst = new int[this.n + 1];
+            this.reverseSources = new int[index.getEdgeCount()];
+            this.queue = new int[this.n];
+            for (int e = 0; e < index.getEdgeCount(); e++) {
+                this.reverseFirst[index.getTarget(e) + 1]++;
+            }
+            for (int v = 0; v < this.n; v++) {
+                this.reverseFirst[v + 1] += this.reverseFirst[v];
+            }
+            int[] fill = Arrays.copyOf(this.reverseFirst, this.n);
+            for (int e = 0; e < index.getEdgeCount(); e++) {
+                this.reverseSources[fill[index.getTarget(e)]++] = index.getSource(e);
+            }
+        }
+
+        /**
+         * Breadth-first search from the origin, filling distance and, if not
+         * null, the parent of each node. Returns the number of reached nodes,
+         * which are left in the queue in order of distance.
+         */
+        private int search(int origin, boolean backwards, int[] distance, int[] parent) {
+            Arrays.fill(distance, UNREACHED);
+            distance[origin] = 0;
+            if (parent != null) parent[origin] = -1;
+            this.queue[0] = origin;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                int v = this.queue[head++];
+                int first = backwards ? this.reverseFirst[v] : this.index.getFirstEdge(v);
+                int end = backwards ? this.reverseFirst[v + 1] : this.index.getEndEdge(v);
+                for (int i = first; i < end; i++) {
+                    int w = backwards ? this.reverseSources[i] : this.index.getTarget(i);
+                    if (distance[w] == UNREACHED) {
+                        distance[w] = distance[v] + 1;
+                        if (parent != null) parent[w] = v;
+                        this.queue[tail++] = w;
+                    }
+                }
+            }
+            return tail;
+        }
+
+        private Landmarks select(int count, Selection selection) {
+            int[] landmarks = new int[count];
+            int[][] from = new int[count][this.n];
+            int[][] to = new int[count][this.n];
+            Random random = new Random(SEED);
+            for (int i = 0; i < count; i++) {
+                int landmark = selection == Selection.AVOID
+                             ? this.avoid(landmarks, from, to, i, random)
+                             : this.farthest(landmarks, from, to, i);
+                landmarks[i] = landmark;
+                this.search(landmark, false, from[i], null);
+                this.search(landmark, true, to[i], null);
+            }
+
+            int[] fromTable = new int[this.n * count];
+            int[] toTable = new int[this.n * count];
+            for (int v = 0; v < this.n; v++) {
+                for (int i = 0; i < count; i++) {
+                    fromTable[v * count + i] = from[i][v];
+                    toTable[v * count + i] = to[i][v];
+                }
+            }
+            return new Landmarks(this.index, Landmarks.fingerprint(this.index), landmarks, fromTable, toTable);
+        }
+
+        /**
+         * Returns the node farthest from the first chosen landmarks, counting
+         * nodes they do not reach as infinitely far.
+         */
+        private int farthest(int[] landmarks, int[][] from, int[][] to, int chosen) {
+            if (chosen == 0) {
+                // Start from the far end of the graph, as seen from any node
+                int[] distance = new int[this.n];
+                int reached = this.search(0, false, distance, null);
+                return this.queue[reached - 1];
+            }
+            int best = -1;
+            long bestDistance = -1;
+            for (int v = 0; v < this.n; v++) {
+                long distance = Long.MAX_VALUE;
+                for (int i = 0; i < chosen && distance > 0; i++) {
+                    distance = Math.min(distance, Math.min((long) from[i][v], (long) to[i][v]));
+                }
+                if (distance > bestDistance) {
+                    best = v;
+                    bestDistance = distance;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Grows the shortest path tree of a random root, weighting each node by
+         * how far the first chosen landmarks underestimate its distance from
+         * the root, and returns a leaf of the heaviest subtree without
+         * landmarks.
+         */
+        private int avoid(int[] landmarks, int[][] from, int[][] to, int chosen, Random random) {
+            int root = random.nextInt(this.n);
+            int[] distance = new int[this.n];
+            int[] parent = new int[this.n];
+            int reached = this.search(root, false, distance, parent);
+
+            long[] size = new long[this.n];
+            boolean[] covered = new boolean[this.n];
+            for (int i = 0; i < chosen; i++) {
+                covered[landmarks[i]] = true;
+            }
+            // Children come after their parents in the queue
+            for (int k = reached - 1; k >= 0; k--) {
+                int v = this.queue[k];
+                size[v] += distance[v] - this.getLowerBound(from, to, chosen, root, v);
+                int p = parent[v];
+                if (p >= 0) {
+                    size[p] += size[v];
+                    covered[p] |= covered[v];
+                }
+            }
+            int[] heaviestChild = new int[this.n];
+            Arrays.fill(heaviestChild, -1);
+            int heaviest = -1;
+            for (int k = 0; k < reached; k++) {
+                int v = this.queue[k];
+                if (covered[v]) size[v] = 0;
+            }
+            for (int k = 0; k < reached; k++) {
+                int v = this.queue[k];
+                int p = parent[v];
+                if (p >= 0 && (heaviestChild[p] < 0 || size[v] > size[heaviestChild[p]])) {
+                    heaviestChild[p] = v;
+                }
+                if (heaviest < 0 || size[v] > size[heaviest]) {
+                    heaviest = v;
+                }
+            }
+            // Every region is covered already
+            if (size[heaviest] == 0) {
+                return this.farthest(landmarks, from, to, chosen);
+            }
+            int leaf = heaviest;
+            while (heaviestChild[leaf] >= 0) {
+                leaf = heaviestChild[leaf];
+            }
+            return leaf;
+        }
+
+        /**
+         * Same bound as Landmarks.getLowerBound(), over the landmarks chosen so
+         * far. Only used for nodes reachable from the source.
+         */
+        private int getLowerBound(int[][] from, int[][] to, int chosen, int source, int target) {
+            int bound = 0;
+            for (int i = 0; i < chosen; i++) {
+                if (from[i][source] != UNREACHED && from[i][target] != UNREACHED) {
+                    bound = Math.max(bound, from[i][target] - from[i][source]);
+                }
+                if (to[i][target] != UNREACHED && to[i][source] != UNREACHED) {
+                    bound = Math.max(bound, to[i][source] - to[i][target]);
+                }
+            }
+            return bound;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package MultigraphADT;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+
+/**
+ * Splits the labels of a graph, its lines, into clusters of roughly the same
+ * number of edges, so that each cluster can be searched on its own.
+ *
+ * <p>
+ * Every edge belongs to the partition of its label. A node with edges in more
+ * than one partition is a boundary node: any path going from one partition to
+ * another does it at a boundary node, switching labels on the way.
+ *
+ * <p>
+ * Lines are assigned from the largest to the smallest. Each goes to the
+ * partition it shares the most nodes with, as long as that does not make the
+ * partition much larger than its share of edges, so that lines meeting at many
+ * interchanges end up together and few nodes are boundary nodes. The result
+ * only depends on the Adjacency, so independent processes partitioning the same
+ * graph agree on it.
+ */
+public final class LinePartitioning {
+    /**
+     * How much larger than its share of edges a partition is allowed to grow
+     */
+    private static final double SLACK = 1.25;
+
+    private final Adjacency index;
+    private final int partitionCount;
+    private final int[] labelPartitions;
+    private final BitSet boundary;
+
+    private LinePartitioning(Adjacency index, int partitionCount, int[] labelPartitions, BitSet boundary) {
+        this.index = index;
+        this.partitionCount = partitionCount;
+        this.labelPartitions = labelPartitions;
+        this.boundary = boundary;
+    }
+
+    /**
+     * Splits the lines of the given graph into the given number of partitions.
+     * Some partitions are empty if there are fewer lines than partitions.
+     */
+    public static LinePartitioning of(Adjacency index, int partitionCount) {
+        // Break early and loudly
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("There must be at least one partition.");
+        }
+        int labelCount = index.getLabelCount();
+        int[] edgeCounts = new int[labelCount];
+        BitSet[] labelNodes = new BitSet[labelCount];
+        for (int l = 0; l < labelCount; l++) {
+            labelNodes[l] = new BitSet(index.getNodeCount());
+        }
+        for (int e = 0; e < index.getEdgeCount(); e++) {
+            int label = index.getEdgeLabel(e);
+            edgeCounts[label]++;
+            labelNodes[label].set(index.getSource(e));
+            labelNodes[label].set(index.getTarget(e));
+        }
+
+        long capacity = (long) Math.ceil(SLACK * index.getEdgeCount() / partitionCount);
+        long[] loads = new long[partitionCount];
+        BitSet[] partitionNodes = new BitSet[partitionCount];
+        for (int p = 0; p < partitionCount; p++) {
+            partitionNodes[p] = new BitSet(index.getNodeCount());
+        }
+
+        int[] labelPartitions = new int[labelCount];
+        Integer[] order = IntStream.range(0, labelCount).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparing((Integer l) -> -edgeCounts[l]).thenComparing(l -> l));
+        for (int label : order) {
+            int best = -1;
+            int bestShared = -1;
+            for (int p = 0; p < partitionCount; p++) {
+                if (loads[p] + edgeCounts[label] > capacity && loads[p] > 0) continue;
+                BitSet shared = (BitSet) partitionNodes[p].clone();
+                shared.and(labelNodes[label]);
+                int count = shared.cardinality();
+                if (count > bestShared || (count == bestShared && loads[p] < loads[best])) {
+                    best = p;
+                    bestShared = count;
+                }
+            }
+            // Every partition is full, fall back to the least loaded one
+            if (best < 0) {
+                best = 0;
+                for (int p = 1; p < partitionCount; p++) {
+                    if (loads[p] < loads[best]) best = p;
+                }
+            }
+            labelPartitions[label] = best;
+            loads[best] += edgeCounts[label];
+            partitionNodes[best].or(labelNodes[label]);
+        }
+
+        // Nodes found in more than one partition
+        BitSet seen = new BitSet(index.getNodeCount());
+        BitSet boundary = new BitSet(index.getNodeCount());
+        for (int p = 0; p < partitionCount; p++) {
+            BitSet repeated = (BitSet) seen.clone();
+            repeated.and(partitionNodes[p]);
+            boundary.or(repeated);
+            seen.or(partitionNodes[p]);
+        }
+        return new LinePartitioning(index, partitionCount, labelPartitions, boundary);
+    }
+
+    public int getPartitionCount() {
+        return this.partitionCount;
+    }
+
+    public int getPartitionOfLabel(int label) {
+        return this.labelPartitions[label];
+    }
+
+    public int getPartitionOfEdge(int edge) {
+        return this.labelPartitions[this.index.getEdgeLabel(edge)];
+    }
+
+    public boolean isBoundary(int node) {
+        return this.boundary.get(node);
+    }
+
+    /**
+     * Builds a graph with the edges of the given partition only.
+     */
+    public Multigraph getPartition(int partition) {
+        Multigraph graph = new IndexedMultigraph();
+        for (int e = 0; e < this.index.getEdgeCount(); e++) {
+            if (this.getPartitionOfEdge(e) == partition) {
+                graph.addEdge(this.index.getEdge(e));
+            }
+        }
+        return graph;
+    }
+}
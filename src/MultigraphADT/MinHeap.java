@@ -0,0 +1,81 @@
+package MultigraphADT;
+
+import java.util.Arrays;
+
+
+/**
+ * Binary min-heap of ints ordered by long keys, for searches over dense
+ * indices. Entries are never updated: a better key is pushed again and the
+ * caller skips stale entries when they are popped.
+ */
+final class MinHeap {
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    MinHeap() {
+        this.keys = new long[16];
+        this.values = new int[16];
+        this.size = 0;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    void clear() {
+        this.size = 0;
+    }
+
+    void push(long key, int value) {
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, 2 * this.size);
+            this.values = Arrays.copyOf(this.values, 2 * this.size);
+        }
+        int i = this.size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (this.keys[parent] <= key) break;
+            this.keys[i] = this.keys[parent];
+            this.values[i] = this.values[parent];
+            i = parent;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+    }
+
+    /**
+     * Returns the smallest key, without removing it.
+     */
+    long peekKey() {
+        return this.keys[0];
+    }
+
+    /**
+     * Returns the value with the smallest key, without removing it.
+     */
+    int peekValue() {
+        return this.values[0];
+    }
+
+    /**
+     * Removes the entry with the smallest key.
+     */
+    void pop() {
+        long key = this.keys[--this.size];
+        int value = this.values[this.size];
+        int i = 0;
+        while (2 * i + 1 < this.size) {
+            int child = 2 * i + 1;
+            if (child + 1 < this.size && this.keys[child + 1] < this.keys[child]) {
+                child++;
+            }
+            if (this.keys[child] >= key) break;
+            this.keys[i] = this.keys[child];
+            this.values[i] = this.values[child];
+            i = child;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+    }
+}
@@ -1,6 +1,7 @@
 package MultigraphADT;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 
@@ -73,8 +74,9 @@ public interface Multigraph {
      * @param startNode origin node.
      * @param endNode target node.
      * @return set of paths, represented by lists of edges.
+     * @throws IllegalArgumentException if the startNode is not in the graph.
      */
-    public Set<List<Edge>> searchShortest(Node startNode, Node endNode);
+    public Set<IndexedPath> searchShortest(Node startNode, Node endNode);
 
     /**
      * Searches for the shortest path between the startNode and the endNode.
@@ -85,6 +87,57 @@ public interface Multigraph {
      * @param endNode target node.
      * @return best path, represented by a list of edges, or null if there is no
      * path.
+     * @throws IllegalArgumentException if the startNode is not in the graph.
      */
-    public List<Edge> searchBest(Node startNode, Node endNode);
+    public IndexedPath searchBest(Node startNode, Node endNode);
+
+    /**
+     * Searches for the shortest paths like searchShortest(Node, Node), giving
+     * up when any of the limits is reached or the thread is interrupted.
+     *
+     * @param startNode origin node.
+     * @param endNode target node.
+     * @param limits limits of the search, or null to always run to the end.
+     * @return the paths found, all of them only if the result is complete.
+     * @throws IllegalArgumentException if the startNode is not in the graph.
+     */
+    public SearchResult<Set<IndexedPath>> searchShortest(Node startNode, Node endNode, SearchLimits limits);
+
+    /**
+     * Searches for the best path like searchBest(Node, Node), giving up when
+     * any of the limits is reached or the thread is interrupted.
+     *
+     * @param startNode origin node.
+     * @param endNode target node.
+     * @param limits limits of the search, or null to always run to the end.
+     * @return best path, or null if there is no path or the search did not
+     * complete.
+     * @throws IllegalArgumentException if the startNode is not in the graph.
+     */
+    public SearchResult<IndexedPath> searchBest(Node startNode, Node endNode, SearchLimits limits);
+
+    /**
+     * Searches for all the nodes that can be reached from the origin following
+     * at most maxEdges edges and switching edge labels at most maxSwitches
+     * times.
+     * Taking the first edge is not a switch. The origin is always reachable.
+     *
+     * @param origin origin node.
+     * @param maxEdges maximum number of edges to follow.
+     * @param maxSwitches maximum number of label switches.
+     * @return set of reachable nodes.
+     */
+    public Set<Node> searchReachable(Node origin, int maxEdges, int maxSwitches);
+
+    /**
+     * Searches for all the nodes that can be reached from each of the origins
+     * within the same budgets as searchReachable(Node, int, int).
+     * Searching many origins at once is much faster than one at a time.
+     *
+     * @param origins origin nodes.
+     * @param maxEdges maximum number of edges to follow.
+     * @param maxSwitches maximum number of label switches.
+     * @return map from each origin to its set of reachable nodes.
+     */
+    public Map<Node,Set<Node>> searchReachable(Collection<Node> origins, int maxEdges, int maxSwitches);
 }
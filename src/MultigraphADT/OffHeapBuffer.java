@@ -0,0 +1,184 @@
+package MultigraphADT;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Growable block of memory outside the Java heap, addressed by byte offsets.
+ *
+ * <p>
+ * The memory is split in chunks of at most CHUNK_SIZE bytes, each of them a
+ * direct or a memory mapped ByteBuffer, so a buffer can grow beyond the 2GB a
+ * single ByteBuffer can address. Every chunk but the last one is full; the last
+ * one grows by doubling. Callers keep ints and longs aligned to their size so
+ * they never straddle two chunks.
+ *
+ * <p>
+ * New memory always reads as zeroes.
+ */
+final class OffHeapBuffer {
+    private static final int CHUNK_SHIFT = 30;
+    static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    /**
+     * Backing file, or null if the memory is not file backed
+     */
+    private final Path file;
+    private final FileChannel channel;
+    private ByteBuffer[] chunks;
+    private long capacity;
+
+    private OffHeapBuffer(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.chunks = new ByteBuffer[0];
+        this.capacity = 0;
+    }
+
+    /**
+     * Creates a buffer in direct memory.
+     */
+    static OffHeapBuffer allocate() {
+        return new OffHeapBuffer(null, null);
+    }
+
+    /**
+     * Creates a buffer mapped to the given file, which is truncated.
+     */
+    static OffHeapBuffer map(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                     StandardOpenOption.TRUNCATE_EXISTING,
+                                                     StandardOpenOption.READ,
+                                                     StandardOpenOption.WRITE);
+        return new OffHeapBuffer(file, channel);
+    }
+
+    long capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Makes sure the given number of bytes can be addressed.
+     */
+    void ensureCapacity(long bytes) {
+        while (this.capacity < bytes) {
+            int last = this.chunks.length - 1;
+            if (last >= 0 && this.chunks[last].capacity() < CHUNK_SIZE) {
+                long needed = bytes - (long) last * CHUNK_SIZE;
+                long size = Math.min(CHUNK_SIZE, Math.max(2L * this.chunks[last].capacity(), needed));
+                this.chunks[last] = this.resize(last, this.chunks[last], size);
+            } else {
+                long needed = bytes - this.capacity;
+                long size = Math.min(CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, needed));
+                this.chunks = Arrays.copyOf(this.chunks, last + 2);
+                this.chunks[last + 1] = this.resize(last + 1, null, size);
+            }
+            last = this.chunks.length - 1;
+            this.capacity = (long) last * CHUNK_SIZE + this.chunks[last].capacity();
+        }
+    }
+
+    /**
+     * Returns a chunk with the given size and the contents of the old one.
+     */
+    private ByteBuffer resize(int chunk, ByteBuffer old, long size) {
+        ByteBuffer buffer;
+        if (this.channel == null) {
+            buffer = ByteBuffer.allocateDirect((int) size);
+            if (old != null) {
+                ByteBuffer source = old.duplicate();
+                source.clear();
+                buffer.put(source);
+                buffer.clear();
+            }
+        } else {
+            // The file keeps the old contents, mapping a larger region is enough
+            try {
+                buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, chunk * CHUNK_SIZE, size);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    byte getByte(long offset) {
+        return this.chunks[(int) (offset >>> CHUNK_SHIFT)].get((int) (offset & CHUNK_MASK));
+    }
+
+    void putByte(long offset, byte value) {
+        this.chunks[(int) (offset >>> CHUNK_SHIFT)].put((int) (offset & CHUNK_MASK), value);
+    }
+
+    int getInt(long offset) {
+        return this.chunks[(int) (offset >>> CHUNK_SHIFT)].getInt((int) (offset & CHUNK_MASK));
+    }
+
+    void putInt(long offset, int value) {
+        this.chunks[(int) (offset >>> CHUNK_SHIFT)].putInt((int) (offset & CHUNK_MASK), value);
+    }
+
+    long getLong(long offset) {
+        return this.chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & CHUNK_MASK));
+    }
+
+    void putLong(long offset, long value) {
+        this.chunks[(int) (offset >>> CHUNK_SHIFT)].putLong((int) (offset & CHUNK_MASK), value);
+    }
+
+    /**
+     * Copies bytes out of the buffer, possibly across chunks.
+     */
+    void get(long offset, byte[] destination) {
+        int done = 0;
+        while (done < destination.length) {
+            long at = offset + done;
+            int position = (int) (at & CHUNK_MASK);
+            int length = (int) Math.min(destination.length - done, CHUNK_SIZE - position);
+            this.chunks[(int) (at >>> CHUNK_SHIFT)].get(position, destination, done, length);
+            done += length;
+        }
+    }
+
+    /**
+     * Copies bytes into the buffer, possibly across chunks.
+     */
+    void put(long offset, byte[] source) {
+        int done = 0;
+        while (done < source.length) {
+            long at = offset + done;
+            int position = (int) (at & CHUNK_MASK);
+            int length = (int) Math.min(source.length - done, CHUNK_SIZE - position);
+            this.chunks[(int) (at >>> CHUNK_SHIFT)].put(position, source, done, length);
+            done += length;
+        }
+    }
+
+    /**
+     * Releases the buffer and deletes its backing file, if any.
+     * Direct memory is given back once the buffer is garbage collected.
+     */
+    void release() {
+        this.chunks = new ByteBuffer[0];
+        this.capacity = 0;
+        if (this.channel == null) return;
+        try {
+            this.channel.close();
+            Files.deleteIfExists(this.file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,597 @@
+package MultigraphADT;
+
+import java.lang.ref.Cleaner;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Multigraph whose node table, edges and strings live outside the Java heap,
+ * so that very large graphs can be loaded without growing the heap.
+ *
+ * <p>
+ * Node identifiers, node names and labels are kept in off-heap string pools;
+ * a node is numbered by its identifier in the pool. Added edges are appended
+ * to an off-heap log, unless an off-heap hash table finds them there already.
+ * The first query after a change sorts the log into compressed rows, and
+ * searches then read those rows in place through an Adjacency.
+ *
+ * <p>
+ * Nodes and edges handed out by this graph are created on demand as
+ * IndexedNode and IndexedEdge objects, so they compare equal to the ones of an
+ * IndexedMultigraph.
+ *
+ * <p>
+ * The memory can optionally be backed by memory mapped files in a directory,
+ * letting the operating system page graphs larger than the physical memory.
+ * close() gives the memory back and deletes those files.
+ */
+public class OffHeapMultigraph implements Multigraph, AutoCloseable {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final OffHeapStorage storage;
+    /**
+     * Node identifiers, numbered as their nodes
+     */
+    private final OffHeapStringPool nodeIds;
+    private final OffHeapStringPool nodeNames;
+    private final OffHeapStringPool labels;
+    /**
+     * Name of each node, as an int into nodeNames
+     */
+    private final OffHeapBuffer nameOfNode;
+    /**
+     * Added edges as (start node, end node, label) triples of ints
+     */
+    private final OffHeapBuffer edgeLog;
+    private int loggedEdges;
+    /**
+     * Open addressing table of the logged edges, as int slots holding their
+     * position in the log plus one
+     */
+    private OffHeapBuffer edgeTable;
+    private int edgeSlots;
+
+    /**
+     * Compressed rows of the logged edges, built on demand
+     */
+    private Rows rows;
+    /**
+     * Releases of the mapped rows dropped after a change, run by CLEANER once
+     * no view uses them any more, or by close()
+     */
+    private final Set<Cleaner.Cleanable> retiredRows;
+
+    /**
+     * Landmarks guiding the searches, dropped with the rows
+     */
+    private Landmarks landmarks;
+
+    /**
+     * Workspace of reachability searches, kept between them
+     */
+    private final AtomicReference<ReachabilitySearch> reachability = new AtomicReference<>();
+
+    /**
+     * Creates a graph in direct memory.
+     */
+    public OffHeapMultigraph() {
+        this(new OffHeapStorage(null));
+    }
+
+    /**
+     * Creates a graph backed by files inside the given directory.
+     */
+    public OffHeapMultigraph(Path directory) {
+        this(new OffHeapStorage(directory));
+    }
+
+    private OffHeapMultigraph(OffHeapStorage storage) {
+        this.storage = storage;
+        this.nodeIds = new OffHeapStringPool(storage, "node-ids");
+        this.nodeNames = new OffHeapStringPool(storage, "node-names");
+        this.labels = new OffHeapStringPool(storage, "labels");
+        this.nameOfNode = storage.create("node-table");
+        this.edgeLog = storage.create("edge-log");
+        this.loggedEdges = 0;
+        this.edgeSlots = 16;
+        this.edgeTable = storage.create("edge-table");
+        this.edgeTable.ensureCapacity(4L * this.edgeSlots);
+        this.retiredRows = ConcurrentHashMap.newKeySet();
+    }
+
+    public Node createNode(String id, String name) {
+        return new IndexedNode(id, name);
+    }
+
+    public Edge createEdge(Node startNode, Node endNode, String label) {
+        return new IndexedEdge(startNode, endNode, label);
+    }
+
+    private Node getNode(int node) {
+        return new IndexedNode(this.nodeIds.get(node),
+                               this.nodeNames.get(this.nameOfNode.getInt(4L * node)));
+    }
+
+    /**
+     * Returns a view of the graph for searches and analyses. A view does not
+     * follow later changes of the graph, but stays readable until close().
+     */
+    public Adjacency getAdjacency() {
+        if (this.rows == null) {
+            this.rows = new Rows();
+        }
+        return this.rows;
+    }
+
+    public Set<Node> getNodes() {
+        Set<Node> nodes = new HashSet<>();
+        for (int v = 0; v < this.nodeIds.size(); v++) {
+            nodes.add(this.getNode(v));
+        }
+        return nodes;
+    }
+
+    public Set<Edge> getEdges() {
+        Adjacency adjacency = this.getAdjacency();
+        Set<Edge> edges = new HashSet<>();
+        for (int e = 0; e < adjacency.getEdgeCount(); e++) {
+            edges.add(adjacency.getEdge(e));
+        }
+        return edges;
+    }
+
+    /**
+     * Returns the index of the given node, failing if it is not in the graph.
+     */
+    private int indexOf(Adjacency adjacency, Node node) {
+        int index = adjacency.indexOf(node);
+        // Break early and loudly
+        if (index < 0) {
+            throw new IllegalArgumentException("Node is not part of the graph.");
+        }
+        return index;
+    }
+
+    public Set<Edge> getOutgoingEdges(Node node) {
+        Adjacency adjacency = this.getAdjacency();
+        int v = this.indexOf(adjacency, node);
+        Set<Edge> edges = new HashSet<>();
+        for (int e = adjacency.getFirstEdge(v); e < adjacency.getEndEdge(v); e++) {
+            edges.add(adjacency.getEdge(e));
+        }
+        return edges;
+    }
+
+    public void addNode(Node node) {
+        // Break early and loudly
+        if (node == null) {
+            throw new IllegalArgumentException("Cannot add a null pointer as node.");
+        }
+        this.intern(node);
+    }
+
+    /**
+     * Returns the index of the node, adding it to the node table if needed.
+     */
+    private int intern(Node node) {
+        int size = this.nodeIds.size();
+        int index = this.nodeIds.intern(node.getID());
+        if (index == size) {
+            this.nameOfNode.ensureCapacity(4L * (index + 1));
+            this.nameOfNode.putInt(4L * index, this.nodeNames.intern(node.getName()));
+            this.dropRows();
+        }
+        return index;
+    }
+
+    public void addEdge(Edge edge) {
+        // Break early and loudly
+        if (edge == null) {
+            throw new IllegalArgumentException("Cannot add a null pointer as edge.");
+        }
+        int start = this.intern(edge.getStartNode());
+        int end = this.intern(edge.getEndNode());
+        int label = this.labels.intern(edge.getLabel());
+
+        // The graph is unchanged by an edge that is already there
+        int slot = this.findEdge(start, end, label);
+        if (this.edgeTable.getInt(4L * slot) != 0) {
+            return;
+        }
+        long offset = 12L * this.loggedEdges++;
+        this.edgeLog.ensureCapacity(offset + 12);
+        this.edgeLog.putInt(offset, start);
+        this.edgeLog.putInt(offset + 4, end);
+        this.edgeLog.putInt(offset + 8, label);
+        this.edgeTable.putInt(4L * slot, this.loggedEdges);
+        if (2L * this.loggedEdges > this.edgeSlots) {
+            this.growEdgeTable();
+        }
+        this.dropRows();
+    }
+
+    /**
+     * Returns the slot of the edge table holding the given edge, or the empty
+     * slot it would go into.
+     */
+    private int findEdge(int start, int end, int label) {
+        long key = (((long) start * 31 + end) << 20) ^ label;
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & (this.edgeSlots - 1);
+        while (true) {
+            int logged = this.edgeTable.getInt(4L * slot) - 1;
+            if (logged < 0) {
+                return slot;
+            }
+            long offset = 12L * logged;
+            if (this.edgeLog.getInt(offset) == start
+                && this.edgeLog.getInt(offset + 4) == end
+                && this.edgeLog.getInt(offset + 8) == label) {
+                return slot;
+            }
+            slot = (slot + 1) & (this.edgeSlots - 1);
+        }
+    }
+
+    /**
+     * Doubles the edge table, keeping it at most half full.
+     */
+    private void growEdgeTable() {
+        this.edgeTable.release();
+        this.edgeSlots *= 2;
+        this.edgeTable = this.storage.create("edge-table");
+        this.edgeTable.ensureCapacity(4L * this.edgeSlots);
+        for (int i = 0; i < this.loggedEdges; i++) {
+            long offset = 12L * i;
+            int slot = this.findEdge(this.edgeLog.getInt(offset),
+                                     this.edgeLog.getInt(offset + 4),
+                                     this.edgeLog.getInt(offset + 8));
+            this.edgeTable.putInt(4L * slot, i + 1);
+        }
+    }
+
+    public void addBidirectionalEdge(Edge edge) {
+        this.addEdge(edge);
+        this.addEdge(edge.revert());
+    }
+
+    /**
+     * Guides searchShortest() and searchBest() towards the end node with the
+     * given landmarks, selected on this graph, until the graph changes.
+     * Null goes back to plain searches.
+     */
+    public void setLandmarks(Landmarks landmarks) {
+        // Break early and loudly
+        if (landmarks != null && !landmarks.fits(this.getAdjacency())) {
+            throw new IllegalArgumentException("Landmarks do not match the graph.");
+        }
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Returns the landmarks guiding the searches, or null.
+     */
+    public Landmarks getLandmarks() {
+        return this.landmarks;
+    }
+
+    public Set<IndexedPath> searchShortest(Node startNode, Node endNode) {
+        return this.searchShortest(startNode, endNode, null).getValue();
+    }
+
+    public SearchResult<Set<IndexedPath>> searchShortest(Node startNode, Node endNode, SearchLimits limits) {
+        return ShortestPathSearch.searchShortest(this.getAdjacency(), this.landmarks, startNode, endNode, limits);
+    }
+
+    public IndexedPath searchBest(Node startNode, Node endNode) {
+        return this.searchBest(startNode, endNode, null).getValue();
+    }
+
+    public SearchResult<IndexedPath> searchBest(Node startNode, Node endNode, SearchLimits limits) {
+        return ShortestPathSearch.searchBest(this.getAdjacency(), this.landmarks, startNode, endNode, limits);
+    }
+
+    public Set<Node> searchReachable(Node origin, int maxEdges, int maxSwitches) {
+        return this.searchReachable(Collections.singletonList(origin), maxEdges, maxSwitches).get(origin);
+    }
+
+    public Map<Node,Set<Node>> searchReachable(Collection<Node> origins, int maxEdges, int maxSwitches) {
+        return ReachabilitySearch.search(this.getAdjacency(), this.reachability, origins, maxEdges, maxSwitches);
+    }
+
+    /**
+     * Drops the rows after a change. Views, paths and searches handed out
+     * before keep reading the old rows, which are given back once they are all
+     * garbage collected: direct memory by the collector itself, backing files
+     * by CLEANER.
+     */
+    private void dropRows() {
+        this.landmarks = null;
+        this.reachability.set(null);
+        if (this.rows != null && this.storage.isMapped()) {
+            RowsRelease release = new RowsRelease(this.rows.getBuffers(), this.retiredRows);
+            release.cleanable = CLEANER.register(this.rows, release);
+            this.retiredRows.add(release.cleanable);
+        }
+        this.rows = null;
+    }
+
+    /**
+     * Releases the buffers of dropped rows. It must not refer to the rows, or
+     * they would never become unreachable.
+     */
+    private static final class RowsRelease implements Runnable {
+        private final OffHeapBuffer[] buffers;
+        private final Set<Cleaner.Cleanable> pending;
+        private Cleaner.Cleanable cleanable;
+
+        private RowsRelease(OffHeapBuffer[] buffers, Set<Cleaner.Cleanable> pending) {
+            this.buffers = buffers;
+            this.pending = pending;
+        }
+
+        public void run() {
+            for (OffHeapBuffer buffer : this.buffers) {
+                buffer.release();
+            }
+            this.pending.remove(this.cleanable);
+        }
+    }
+
+    /**
+     * Gives back the off-heap memory and deletes the backing files, if any.
+     * The graph, and every view, path or search handed out by it, cannot be
+     * used afterwards.
+     */
+    public void close() {
+        this.dropRows();
+        for (Cleaner.Cleanable retired : this.retiredRows) {
+            retired.clean();
+        }
+        this.nodeIds.release();
+        this.nodeNames.release();
+        this.labels.release();
+        this.nameOfNode.release();
+        this.edgeLog.release();
+        this.edgeTable.release();
+    }
+
+    /**
+     * Sorts the region [from, to) of a buffer of longs, in place.
+     */
+    private static void sort(OffHeapBuffer keys, int from, int to) {
+        // Rows are usually short, insertion sort is enough for them
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                long key = keys.getLong(8L * i);
+                int j = i - 1;
+                while (j >= from && keys.getLong(8L * j) > key) {
+                    keys.putLong(8L * (j + 1), keys.getLong(8L * j));
+                    j--;
+                }
+                keys.putLong(8L * (j + 1), key);
+            }
+            return;
+        }
+        // Heap sort otherwise, as it needs no extra memory
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(keys, from, i, n);
+        }
+        for (int last = n - 1; last > 0; last--) {
+            long top = keys.getLong(8L * from);
+            keys.putLong(8L * from, keys.getLong(8L * (from + last)));
+            keys.putLong(8L * (from + last), top);
+            siftDown(keys, from, 0, last);
+        }
+    }
+
+    private static void siftDown(OffHeapBuffer keys, int from, int i, int n) {
+        long key = keys.getLong(8L * (from + i));
+        while (2 * i + 1 < n) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && keys.getLong(8L * (from + child + 1)) > keys.getLong(8L * (from + child))) {
+                child++;
+            }
+            long childKey = keys.getLong(8L * (from + child));
+            if (childKey <= key) break;
+            keys.putLong(8L * (from + i), childKey);
+            i = child;
+        }
+        keys.putLong(8L * (from + i), key);
+    }
+
+    /**
+     * The logged edges sorted into compressed rows, with their states.
+     */
+    private final class Rows implements Adjacency {
+        private final int nodeCount;
+        private final int edgeCount;
+        private final int stateCount;
+        private final OffHeapBuffer offsets;
+        private final OffHeapBuffer sources;
+        private final OffHeapBuffer targets;
+        private final OffHeapBuffer edgeLabels;
+        private final OffHeapBuffer edgeStates;
+        private final OffHeapBuffer stateNodes;
+        private final OffHeapBuffer stateLabels;
+
+        private Rows() {
+            OffHeapMultigraph graph = OffHeapMultigraph.this;
+            int n = graph.nodeIds.size();
+            int logged = graph.loggedEdges;
+            this.nodeCount = n;
+
+            // Count the edges departing from each node, then turn the counts
+            // into the offsets where each row starts
+            this.offsets = graph.storage.create("offsets");
+            this.offsets.ensureCapacity(4L * (n + 1));
+            for (int i = 0; i < logged; i++) {
+                long at = 4L * (graph.edgeLog.getInt(12L * i) + 1);
+                this.offsets.putInt(at, this.offsets.getInt(at) + 1);
+            }
+            for (int v = 0; v < n; v++) {
+                this.offsets.putInt(4L * (v + 1), this.offsets.getInt(4L * (v + 1)) + this.offsets.getInt(4L * v));
+            }
+
+            // Scatter the logged edges into their rows as (end node, label) keys
+            OffHeapBuffer cursor = graph.storage.create("cursor");
+            cursor.ensureCapacity(4L * n);
+            for (int v = 0; v < n; v++) {
+                cursor.putInt(4L * v, this.offsets.getInt(4L * v));
+            }
+            OffHeapBuffer keys = graph.storage.create("keys");
+            keys.ensureCapacity(8L * logged);
+            for (int i = 0; i < logged; i++) {
+                int start = graph.edgeLog.getInt(12L * i);
+                int position = cursor.getInt(4L * start);
+                cursor.putInt(4L * start, position + 1);
+                long key = ((long) graph.edgeLog.getInt(12L * i + 4) << 32) | graph.edgeLog.getInt(12L * i + 8);
+                keys.putLong(8L * position, key);
+            }
+            cursor.release();
+
+            // Sort every row, edges are never logged twice
+            this.sources = graph.storage.create("sources");
+            this.targets = graph.storage.create("targets");
+            this.edgeLabels = graph.storage.create("edge-labels");
+            this.sources.ensureCapacity(4L * logged);
+            this.targets.ensureCapacity(4L * logged);
+            this.edgeLabels.ensureCapacity(4L * logged);
+            int written = 0;
+            int rowStart = 0;
+            for (int v = 0; v < n; v++) {
+                int rowEnd = this.offsets.getInt(4L * (v + 1));
+                sort(keys, rowStart, rowEnd);
+                this.offsets.putInt(4L * v, written);
+                for (int i = rowStart; i < rowEnd; i++) {
+                    long key = keys.getLong(8L * i);
+                    this.sources.putInt(4L * written, v);
+                    this.targets.putInt(4L * written, (int) (key >>> 32));
+                    this.edgeLabels.putInt(4L * written, (int) key);
+                    written++;
+                }
+                rowStart = rowEnd;
+            }
+            this.offsets.putInt(4L * n, written);
+            this.edgeCount = written;
+            keys.release();
+
+            // Number the (end node, label) states with an open addressing
+            // table of (key + 1, state) slots
+            int slots = Integer.highestOneBit(Math.max(16, 2 * written - 1)) << 1;
+            OffHeapBuffer table = graph.storage.create("states");
+            table.ensureCapacity(16L * slots);
+            this.edgeStates = graph.storage.create("edge-states");
+            this.stateNodes = graph.storage.create("state-nodes");
+            this.stateLabels = graph.storage.create("state-labels");
+            this.edgeStates.ensureCapacity(4L * written);
+            this.stateNodes.ensureCapacity(4L * written);
+            this.stateLabels.ensureCapacity(4L * written);
+            int labelCount = graph.labels.size();
+            int states = 0;
+            for (int e = 0; e < written; e++) {
+                int target = this.targets.getInt(4L * e);
+                int label = this.edgeLabels.getInt(4L * e);
+                long key = (long) target * labelCount + label + 1;
+                int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & (slots - 1);
+                while (table.getLong(16L * slot) != 0 && table.getLong(16L * slot) != key) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                if (table.getLong(16L * slot) == 0) {
+                    table.putLong(16L * slot, key);
+                    table.putInt(16L * slot + 8, states);
+                    this.stateNodes.putInt(4L * states, target);
+                    this.stateLabels.putInt(4L * states, label);
+                    states++;
+                }
+                this.edgeStates.putInt(4L * e, table.getInt(16L * slot + 8));
+            }
+            this.stateCount = states;
+            table.release();
+        }
+
+        private OffHeapBuffer[] getBuffers() {
+            return new OffHeapBuffer[] {this.offsets, this.sources, this.targets, this.edgeLabels,
+                                        this.edgeStates, this.stateNodes, this.stateLabels};
+        }
+
+        public int getNodeCount() {
+            return this.nodeCount;
+        }
+
+        public int getEdgeCount() {
+            return this.edgeCount;
+        }
+
+        public int getLabelCount() {
+            return OffHeapMultigraph.this.labels.size();
+        }
+
+        public int getStateCount() {
+            return this.stateCount;
+        }
+
+        public int indexOf(Node node) {
+            int index = OffHeapMultigraph.this.nodeIds.find(node.getID());
+            // Nodes added after these rows were built have no row
+            return index < this.nodeCount ? index : -1;
+        }
+
+        public Node getNode(int node) {
+            return OffHeapMultigraph.this.getNode(node);
+        }
+
+        public String getName(int node) {
+            return OffHeapMultigraph.this.nodeNames.get(OffHeapMultigraph.this.nameOfNode.getInt(4L * node));
+        }
+
+        public String getLabel(int label) {
+            return OffHeapMultigraph.this.labels.get(label);
+        }
+
+        public int getFirstEdge(int node) {
+            return this.offsets.getInt(4L * node);
+        }
+
+        public int getEndEdge(int node) {
+            return this.offsets.getInt(4L * (node + 1));
+        }
+
+        public int getSource(int edge) {
+            return this.sources.getInt(4L * edge);
+        }
+
+        public int getTarget(int edge) {
+            return this.targets.getInt(4L * edge);
+        }
+
+        public int getEdgeLabel(int edge) {
+            return this.edgeLabels.getInt(4L * edge);
+        }
+
+        public int getEdgeState(int edge) {
+            return this.edgeStates.getInt(4L * edge);
+        }
+
+        public int getStateNode(int state) {
+            return this.stateNodes.getInt(4L * state);
+        }
+
+        public int getStateLabel(int state) {
+            return this.stateLabels.getInt(4L * state);
+        }
+
+        public Edge getEdge(int edge) {
+            return new IndexedEdge(this.getNode(this.getSource(edge)),
+                                   this.getNode(this.getTarget(edge)),
+                                   this.getLabel(this.getEdgeLabel(edge)));
+        }
+    }
+}
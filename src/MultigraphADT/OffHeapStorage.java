@@ -0,0 +1,49 @@
+package MultigraphADT;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+
+/**
+ * Creates the off-heap buffers of a graph, either in direct memory or as
+ * memory mapped files inside a directory.
+ */
+final class OffHeapStorage {
+    /**
+     * Directory for the backing files, or null for direct memory
+     */
+    private final Path directory;
+    private int created;
+
+    OffHeapStorage(Path directory) {
+        this.directory = directory;
+        this.created = 0;
+    }
+
+    /**
+     * Returns whether the buffers are backed by files, which are only deleted
+     * when released.
+     */
+    boolean isMapped() {
+        return this.directory != null;
+    }
+
+    /**
+     * Creates a new empty buffer.
+     *
+     * @param name prefix of the backing file name, for debugging.
+     */
+    OffHeapBuffer create(String name) {
+        if (this.directory == null) {
+            return OffHeapBuffer.allocate();
+        }
+        Path file = this.directory.resolve(String.format("%s.%d.bin", name, this.created++));
+        try {
+            return OffHeapBuffer.map(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
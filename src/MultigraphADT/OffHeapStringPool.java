@@ -0,0 +1,159 @@
+package MultigraphADT;
+
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Set of distinct strings kept off the heap, each numbered in the order it was
+ * first added.
+ *
+ * <p>
+ * Strings are stored one after the other as a length and their UTF-8 bytes,
+ * padded to 4 bytes. An open addressing hash table of string numbers makes
+ * lookups by value possible without keeping any String on the heap.
+ */
+final class OffHeapStringPool {
+    private final OffHeapStorage storage;
+    private final String name;
+    /**
+     * Length prefixed UTF-8 strings
+     */
+    private final OffHeapBuffer bytes;
+    /**
+     * Offset in bytes of each string, as longs
+     */
+    private final OffHeapBuffer offsets;
+    /**
+     * Hash table slots holding string numbers plus one, zero being empty
+     */
+    private OffHeapBuffer table;
+    private int slots;
+    private int size;
+    private long used;
+
+    OffHeapStringPool(OffHeapStorage storage, String name) {
+        this.storage = storage;
+        this.name = name;
+        this.bytes = storage.create(name + "-bytes");
+        this.offsets = storage.create(name + "-offsets");
+        this.slots = 16;
+        this.table = this.createTable(this.slots);
+        this.size = 0;
+        this.used = 0;
+    }
+
+    private OffHeapBuffer createTable(int slots) {
+        OffHeapBuffer table = this.storage.create(this.name + "-table");
+        table.ensureCapacity(4L * slots);
+        return table;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    private static int hash(byte[] encoded) {
+        int h = 1;
+        for (byte b : encoded) {
+            h = 31 * h + b;
+        }
+        // Spread the bits so that masking keeps some of the high ones
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot holding the given string, or the empty slot where it
+     * would go.
+     */
+    private int findSlot(byte[] encoded) {
+        int mask = this.slots - 1;
+        for (int slot = hash(encoded) & mask; ; slot = (slot + 1) & mask) {
+            int entry = this.table.getInt(4L * slot);
+            if (entry == 0 || this.matches(entry - 1, encoded)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean matches(int id, byte[] encoded) {
+        long offset = this.offsets.getLong(8L * id);
+        if (this.bytes.getInt(offset) != encoded.length) return false;
+        for (int i = 0; i < encoded.length; i++) {
+            if (this.bytes.getByte(offset + 4 + i) != encoded[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of the given string, or -1 if it is not in the pool.
+     */
+    int find(String value) {
+        int entry = this.table.getInt(4L * this.findSlot(value.getBytes(StandardCharsets.UTF_8)));
+        return entry - 1;
+    }
+
+    /**
+     * Returns the number of the given string, adding it to the pool if needed.
+     */
+    int intern(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        int slot = this.findSlot(encoded);
+        int entry = this.table.getInt(4L * slot);
+        if (entry != 0) {
+            return entry - 1;
+        }
+
+        int id = this.size++;
+        this.bytes.ensureCapacity(this.used + 4 + encoded.length);
+        this.bytes.putInt(this.used, encoded.length);
+        this.bytes.put(this.used + 4, encoded);
+        this.offsets.ensureCapacity(8L * this.size);
+        this.offsets.putLong(8L * id, this.used);
+        this.used += (4 + encoded.length + 3) & ~3;
+        this.table.putInt(4L * slot, id + 1);
+
+        // Keep the table at most half full
+        if (2L * this.size > this.slots) {
+            this.rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        OffHeapBuffer old = this.table;
+        int oldSlots = this.slots;
+        this.slots = oldSlots * 2;
+        this.table = this.createTable(this.slots);
+        int mask = this.slots - 1;
+        for (int i = 0; i < oldSlots; i++) {
+            int entry = old.getInt(4L * i);
+            if (entry == 0) continue;
+            int slot = hash(this.encoded(entry - 1)) & mask;
+            while (this.table.getInt(4L * slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table.putInt(4L * slot, entry);
+        }
+        old.release();
+    }
+
+    private byte[] encoded(int id) {
+        long offset = this.offsets.getLong(8L * id);
+        byte[] encoded = new byte[this.bytes.getInt(offset)];
+        this.bytes.get(offset + 4, encoded);
+        return encoded;
+    }
+
+    /**
+     * Returns the string with the given number.
+     */
+    String get(int id) {
+        return new String(this.encoded(id), StandardCharsets.UTF_8);
+    }
+
+    void release() {
+        this.bytes.release();
+        this.offsets.release();
+        this.table.release();
+    }
+}
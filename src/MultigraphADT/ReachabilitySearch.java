@@ -0,0 +1,290 @@
+package MultigraphADT;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Finds every node reachable from a set of origins within a budget of edges and
+ * of label switches.
+ *
+ * <p>
+ * The search advances one edge at a time over the states of an Adjacency.
+ * For every state and number of switches it keeps a 64 bit word with one bit
+ * per origin, so 64 origins are searched at the same time with word-wide
+ * operations. Only the states touched in the previous step are visited, and
+ * only the numbers of switches actually used get a row, so each batch of
+ * origins costs time proportional to the region it reaches.
+ *
+ * <p>
+ * Taking the first edge is not a switch: a path switches labels every time an
+ * edge has a different label than the previous one.
+ */
+final class ReachabilitySearch {
+    private final Adjacency index;
+    private int maxEdges;
+    private int maxSwitches;
+
+    /**
+     * Origins that reached each state with at most c switches, in [c][state].
+     * Rows are only allocated for the numbers of switches actually used.
+     */
+    private long[][] reached;
+    /**
+     * Origins that reached each state for the first time in the last step
+     */
+    private long[][] frontier;
+    /**
+     * Origins that may reach each state in the next step
+     */
+    private long[][] candidates;
+    /**
+     * Rows allocated, and rows used by the current batch
+     */
+    private int levels;
+    private int usedLevels;
+
+    private final int[] frontierStates;
+    private final int[] candidateStates;
+    private final boolean[] isCandidate;
+    private final int[] touchedStates;
+    private final boolean[] isTouched;
+    private int frontierSize;
+    private int candidateSize;
+    private int touchedSize;
+
+    /**
+     * Creates the workspace of searches over the given Adjacency. It can be
+     * reused by any number of searches, one at a time.
+     */
+    ReachabilitySearch(Adjacency index) {
+        int states = index.getStateCount();
+        this.index = index;
+        this.reached = new long[0][];
+        this.frontier = new long[0][];
+        this.candidates = new long[0][];
+        this.levels = 0;
+        this.frontierStates = new int[states];
+        this.candidateStates = new int[states];
+        this.isCandidate = new boolean[states];
+        this.touchedStates = new int[states];
+        this.isTouched = new boolean[states];
+    }
+
+    /**
+     * Searches from the given origins on behalf of a Multigraph, reusing the
+     * idle workspace kept in the given reference if it is for the same
+     * Adjacency.
+     */
+    static Map<Node,Set<Node>> search(Adjacency index, AtomicReference<ReachabilitySearch> idle,
+                                      Collection<Node> origins, int maxEdges, int maxSwitches) {
+        int[] indices = new int[origins.size()];
+        int i = 0;
+        for (Node origin : origins) {
+            indices[i] = index.indexOf(origin);
+            // Break early and loudly
+            if (indices[i] < 0) {
+                throw new IllegalArgumentException("Origin is not part of the graph.");
+            }
+            i++;
+        }
+
+        // Take the workspace so other threads do not share it meanwhile
+        ReachabilitySearch search = idle.getAndSet(null);
+        if (search == null || search.index != index) {
+            search = new ReachabilitySearch(index);
+        }
+        BitSet[] reached = search.search(indices, maxEdges, maxSwitches);
+        idle.set(search);
+
+        Map<Node,Set<Node>> result = new HashMap<>();
+        for (i = 0; i < indices.length; i++) {
+            Set<Node> nodes = new HashSet<>();
+            for (int n = reached[i].nextSetBit(0); n >= 0; n = reached[i].nextSetBit(n + 1)) {
+                nodes.add(index.getNode(n));
+            }
+            result.put(index.getNode(indices[i]), nodes);
+        }
+        return result;
+    }
+
+    /**
+     * Returns, for each origin, the set of indices of the nodes it reaches.
+     * Every origin reaches itself.
+     */
+    BitSet[] search(int[] origins, int maxEdges, int maxSwitches) {
+        if (maxEdges < 0 || maxSwitches < 0) {
+            throw new IllegalArgumentException("Search budgets cannot be negative.");
+        }
+        this.maxEdges = maxEdges;
+        // A path of n edges switches at most n - 1 times, and a path with the
+        // fewest switches never goes through the same state twice
+        this.maxSwitches = Math.min(maxSwitches, Math.max(0, Math.min(maxEdges, this.index.getStateCount()) - 1));
+        BitSet[] result = new BitSet[origins.length];
+        for (int from = 0; from < origins.length; from += Long.SIZE) {
+            int to = Math.min(origins.length, from + Long.SIZE);
+            this.searchBatch(origins, from, to, result);
+        }
+        return result;
+    }
+
+    private void addCandidate(int state) {
+        if (!this.isCandidate[state]) {
+            this.isCandidate[state] = true;
+            this.candidateStates[this.candidateSize++] = state;
+        }
+    }
+
+    /**
+     * Makes the rows of the given number of switches usable by this batch. A new
+     * row starts with what was reached with fewer switches.
+     */
+    private void useLevel(int c) {
+        if (c >= this.levels) {
+            int length = Math.max(c + 1, 2 * this.levels);
+            this.reached = Arrays.copyOf(this.reached, length);
+            this.frontier = Arrays.copyOf(this.frontier, length);
+            this.candidates = Arrays.copyOf(this.candidates, length);
+            int states = this.index.getStateCount();
+            for (int l = this.levels; l <= c; l++) {
+                this.reached[l] = new long[states];
+                this.frontier[l] = new long[states];
+                this.candidates[l] = new long[states];
+            }
+            this.levels = c + 1;
+        }
+        for (; this.usedLevels <= c; this.usedLevels++) {
+            if (this.usedLevels == 0) continue;
+            long[] lower = this.reached[this.usedLevels - 1];
+            long[] row = this.reached[this.usedLevels];
+            for (int i = 0; i < this.touchedSize; i++) {
+                int state = this.touchedStates[i];
+                row[state] = lower[state];
+            }
+        }
+    }
+
+    /**
+     * Searches from at most 64 origins, origins[from + b] being bit b.
+     */
+    private void searchBatch(int[] origins, int from, int to, BitSet[] result) {
+        for (int i = from; i < to; i++) {
+            result[i] = new BitSet(this.index.getNodeCount());
+            result[i].set(origins[i]);
+        }
+        if (this.maxEdges == 0) return;
+
+        // The first edge is never a switch
+        this.useLevel(0);
+        for (int i = from; i < to; i++) {
+            int origin = origins[i];
+            long bit = 1L << (i - from);
+            for (int e = this.index.getFirstEdge(origin); e < this.index.getEndEdge(origin); e++) {
+                int state = this.index.getEdgeState(e);
+                this.candidates[0][state] |= bit;
+                this.addCandidate(state);
+            }
+        }
+
+        for (int step = 1; this.candidateSize > 0; step++) {
+            this.settleCandidates();
+            if (step == this.maxEdges) break;
+            this.expandFrontier();
+        }
+
+        // Collect the reached nodes and leave the workspace clean for the next batch
+        long[] reachedAll = this.reached[this.usedLevels - 1];
+        for (int i = 0; i < this.touchedSize; i++) {
+            int state = this.touchedStates[i];
+            int node = this.index.getStateNode(state);
+            for (long bits = reachedAll[state]; bits != 0; bits &= bits - 1) {
+                result[from + Long.numberOfTrailingZeros(bits)].set(node);
+            }
+            for (int c = 0; c < this.usedLevels; c++) {
+                this.reached[c][state] = 0;
+                this.frontier[c][state] = 0;
+            }
+            this.isTouched[state] = false;
+        }
+        for (int i = 0; i < this.candidateSize; i++) {
+            int state = this.candidateStates[i];
+            for (int c = 0; c < this.usedLevels; c++) {
+                this.candidates[c][state] = 0;
+            }
+            this.isCandidate[state] = false;
+        }
+        this.touchedSize = 0;
+        this.candidateSize = 0;
+        this.frontierSize = 0;
+        this.usedLevels = 0;
+    }
+
+    /**
+     * Turns the candidates into the new frontier, keeping only the origins that
+     * had not already reached each state with as few switches.
+     */
+    private void settleCandidates() {
+        this.frontierSize = 0;
+        for (int i = 0; i < this.candidateSize; i++) {
+            int state = this.candidateStates[i];
+            this.isCandidate[state] = false;
+            // Reaching a state with c switches also counts for any larger budget
+            long carried = 0;
+            long fresh = 0;
+            for (int c = 0; c < this.usedLevels; c++) {
+                carried |= this.candidates[c][state];
+                this.candidates[c][state] = 0;
+                long bits = carried & ~this.reached[c][state];
+                this.reached[c][state] |= bits;
+                this.frontier[c][state] = bits;
+                fresh |= bits;
+            }
+            if (fresh != 0) {
+                this.frontierStates[this.frontierSize++] = state;
+                if (!this.isTouched[state]) {
+                    this.isTouched[state] = true;
+                    this.touchedStates[this.touchedSize++] = state;
+                }
+            }
+        }
+        this.candidateSize = 0;
+    }
+
+    /**
+     * Follows every edge out of the frontier states.
+     */
+    private void expandFrontier() {
+        for (int i = 0; i < this.frontierSize; i++) {
+            int state = this.frontierStates[i];
+            int node = this.index.getStateNode(state);
+            int label = this.index.getStateLabel(state);
+            long lower = 0;
+            for (int c = 0; c < this.usedLevels; c++) {
+                // Origins also in the frontier with fewer switches get there
+                // at least as well from that lower budget
+                long bits = this.frontier[c][state] & ~lower;
+                lower |= this.frontier[c][state];
+                this.frontier[c][state] = 0;
+                if (bits == 0) continue;
+                for (int e = this.index.getFirstEdge(node); e < this.index.getEndEdge(node); e++) {
+                    int next = this.index.getEdgeState(e);
+                    if (this.index.getEdgeLabel(e) == label) {
+                        this.candidates[c][next] |= bits;
+                    } else if (c < this.maxSwitches) {
+                        if (c + 1 >= this.usedLevels) this.useLevel(c + 1);
+                        this.candidates[c + 1][next] |= bits;
+                    } else {
+                        continue;
+                    }
+                    this.addCandidate(next);
+                }
+            }
+        }
+    }
+}
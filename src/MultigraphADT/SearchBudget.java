@@ -0,0 +1,99 @@
+package MultigraphADT;
+
+
+/**
+ * Keeps track of the work of one search against its SearchLimits.
+ *
+ * <p>
+ * Counting is checked on every call, while the clock and the interrupt flag are
+ * only checked every CHECK_INTERVAL calls, to keep hot loops cheap. Once a
+ * limit is reached, every call returns false. Without limits, searches run to
+ * the end, even if interrupted.
+ */
+final class SearchBudget {
+    private static final int CHECK_INTERVAL = 256;
+
+    private final SearchLimits limits;
+    private long expanded;
+    private long paths;
+    private int ticks;
+    private SearchResult.Status status;
+
+    /**
+     * Creates a budget for the given limits, or an endless one if null.
+     */
+    SearchBudget(SearchLimits limits) {
+        this.limits = limits;
+        this.status = SearchResult.Status.COMPLETE;
+        // Check the clock and the interrupt flag on the first step
+        this.ticks = CHECK_INTERVAL - 1;
+    }
+
+    /**
+     * Counts a node or state expanded, returns whether the search can go on.
+     */
+    boolean expand() {
+        if (this.limits == null) {
+            this.expanded++;
+            return true;
+        }
+        if (this.expanded >= this.limits.getMaxExpanded()) {
+            return this.stop(SearchResult.Status.BUDGET_EXHAUSTED);
+        }
+        this.expanded++;
+        return this.tick();
+    }
+
+    /**
+     * Asks to enumerate one more path, returns whether it can be.
+     */
+    boolean enumerate() {
+        if (this.limits == null) {
+            this.paths++;
+            return true;
+        }
+        if (this.paths >= this.limits.getMaxPaths()) {
+            return this.stop(SearchResult.Status.BUDGET_EXHAUSTED);
+        }
+        this.paths++;
+        return this.tick();
+    }
+
+    /**
+     * Counts a step of work, returns whether the search can go on.
+     */
+    boolean tick() {
+        if (this.limits == null) {
+            return true;
+        }
+        if (this.status != SearchResult.Status.COMPLETE) {
+            return false;
+        }
+        if (++this.ticks < CHECK_INTERVAL) {
+            return true;
+        }
+        this.ticks = 0;
+        if (Thread.currentThread().isInterrupted()) {
+            return this.stop(SearchResult.Status.INTERRUPTED);
+        }
+        if (this.limits.hasDeadline() && System.nanoTime() - this.limits.getDeadline() > 0) {
+            return this.stop(SearchResult.Status.TIMED_OUT);
+        }
+        return true;
+    }
+
+    private boolean stop(SearchResult.Status status) {
+        if (this.status == SearchResult.Status.COMPLETE) {
+            this.status = status;
+        }
+        return false;
+    }
+
+    boolean isExhausted() {
+        return this.status != SearchResult.Status.COMPLETE;
+    }
+
+    <T> SearchResult<T> result(T value) {
+        return new SearchResult<>(value, this.status, this.expanded, this.paths);
+    }
+}
@@ -0,0 +1,90 @@
+package MultigraphADT;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Bounds on the work of a search: a deadline, a number of nodes or states
+ * expanded and a number of paths enumerated.
+ *
+ * <p>
+ * Searches check their limits as they go and stop early with a partial result
+ * when any of them is reached, or when their thread is interrupted. Limits are
+ * immutable: each with method returns new limits. The deadline is fixed when
+ * it is set, so the same limits can bound several searches that share it.
+ *
+ * <p>
+ * A deadline alone does not bound memory: a graph with many shortest paths
+ * can enumerate millions of them before it passes. Only withMaxPaths() caps
+ * them, the number of paths is unbounded otherwise.
+ */
+public final class SearchLimits {
+    /**
+     * No limits at all, searches only stop when interrupted.
+     */
+    public static final SearchLimits NONE = new SearchLimits(Long.MAX_VALUE, false, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long deadline;
+    private final boolean hasDeadline;
+    private final long maxExpanded;
+    private final long maxPaths;
+
+    private SearchLimits(long deadline, boolean hasDeadline, long maxExpanded, long maxPaths) {
+        this.deadline = deadline;
+        this.hasDeadline = hasDeadline;
+        this.maxExpanded = maxExpanded;
+        this.maxPaths = maxPaths;
+    }
+
+    /**
+     * Returns these limits with a deadline the given time from now.
+     */
+    public SearchLimits withTimeout(long timeout, TimeUnit unit) {
+        // Break early and loudly
+        if (timeout < 0 || unit == null) {
+            throw new IllegalArgumentException("Timeout cannot be negative.");
+        }
+        return new SearchLimits(System.nanoTime() + unit.toNanos(timeout), true, this.maxExpanded, this.maxPaths);
+    }
+
+    /**
+     * Returns these limits with a maximum number of nodes or states expanded.
+     */
+    public SearchLimits withMaxExpanded(long maxExpanded) {
+        // Break early and loudly
+        if (maxExpanded < 0) {
+            throw new IllegalArgumentException("Search budgets cannot be negative.");
+        }
+        return new SearchLimits(this.deadline, this.hasDeadline, maxExpanded, this.maxPaths);
+    }
+
+    /**
+     * Returns these limits with a maximum number of paths enumerated.
+     */
+    public SearchLimits withMaxPaths(long maxPaths) {
+        // Break early and loudly
+        if (maxPaths < 0) {
+            throw new IllegalArgumentException("Search budgets cannot be negative.");
+        }
+        return new SearchLimits(this.deadline, this.hasDeadline, this.maxExpanded, maxPaths);
+    }
+
+    /**
+     * Returns the deadline, in System.nanoTime() terms.
+     */
+    public long getDeadline() {
+        return this.deadline;
+    }
+
+    public boolean hasDeadline() {
+        return this.hasDeadline;
+    }
+
+    public long getMaxExpanded() {
+        return this.maxExpanded;
+    }
+
+    public long getMaxPaths() {
+        return this.maxPaths;
+    }
+}
@@ -0,0 +1,78 @@
+package MultigraphADT;
+
+
+/**
+ * The outcome of a search bounded by SearchLimits: what it found, and whether
+ * it finished.
+ *
+ * <p>
+ * A search that stops early keeps what it found so far when it is still
+ * correct: shortest paths enumerated before the stop are shortest paths, but
+ * there may be more of them. Otherwise the value is the same as when nothing
+ * is found, an empty set or null.
+ */
+public final class SearchResult<T> {
+    /**
+     * Why a search stopped.
+     */
+    public enum Status {
+        /**
+         * The search finished, the value is exact.
+         */
+        COMPLETE,
+        /**
+         * The deadline passed.
+         */
+        TIMED_OUT,
+        /**
+         * Too many nodes were expanded or paths enumerated.
+         */
+        BUDGET_EXHAUSTED,
+        /**
+         * The thread running the search was interrupted. The interrupt flag is
+         * left set.
+         */
+        INTERRUPTED
+    }
+
+    private final T value;
+    private final Status status;
+    private final long expanded;
+    private final long paths;
+
+    SearchResult(T value, Status status, long expanded, long paths) {
+        this.value = value;
+        this.status = status;
+        this.expanded = expanded;
+        this.paths = paths;
+    }
+
+    /**
+     * Returns what the search found, maybe partial if it did not complete.
+     */
+    public T getValue() {
+        return this.value;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public boolean isComplete() {
+        return this.status == Status.COMPLETE;
+    }
+
+    /**
+     * Returns the number of nodes or states the search expanded.
+     */
+    public long getExpandedCount() {
+        return this.expanded;
+    }
+
+    /**
+     * Returns the number of paths the search enumerated.
+     */
+    public long getPathCount() {
+        return this.paths;
+    }
+}
@@ -0,0 +1,288 @@
+package MultigraphADT;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Breadth-first search for all the shortest paths between two nodes of an
+ * Adjacency.
+ *
+ * <p>
+ * Nodes are evaluated in batches of nodes at the same distance from the start
+ * node, annotating the edges that got us to each node, until the batch holding
+ * the end node. The annotations are then walked back from the end node to
+ * enumerate every path as an IndexedPath.
+ *
+ * <p>
+ * With Landmarks, the nodes are evaluated in order of their distance from the
+ * start plus a lower bound of their distance to the end instead, which finds
+ * the same paths while evaluating mostly the nodes in the direction of the end.
+ *
+ * <p>
+ * Both steps count their work against a SearchBudget and stop as soon as it
+ * runs out; the paths enumerated until then are still shortest paths.
+ *
+ * <p>
+ * The graph is only read through the Adjacency, so it can live anywhere. The
+ * search keeps three ints per node of workspace, plus the annotated edges.
+ */
+final class ShortestPathSearch {
+    private final Adjacency index;
+    private final Landmarks landmarks;
+    private final MinHeap heap;
+    private int settled;
+
+    /**
+     * Edges that got us to each node, as linked lists threaded through
+     * parentEdges and parentNext, starting at parentHead[node]
+     */
+    private final int[] parentHead;
+    private int[] parentEdges;
+    private int[] parentNext;
+    private int parents;
+
+    ShortestPathSearch(Adjacency index) {
+        this(index, null);
+    }
+
+    /**
+     * Creates a search guided by the given landmarks, or a plain one if they
+     * are null.
+     */
+    ShortestPathSearch(Adjacency index, Landmarks landmarks) {
+        this.index = index;
+        this.landmarks = landmarks;
+        this.heap = landmarks == null ? null : new MinHeap();
+        this.parentHead = new int[index.getNodeCount()];
+        this.parentEdges = new int[16];
+        this.parentNext = new int[16];
+        this.parents = 0;
+    }
+
+    /**
+     * Searches for the shortest paths between two nodes on behalf of a
+     * Multigraph.
+     */
+    static SearchResult<Set<IndexedPath>> searchShortest(Adjacency index, Landmarks landmarks,
+                                                         Node startNode, Node endNode, SearchLimits limits) {
+        int start = ShortestPathSearch.indexOfStart(index, startNode);
+        int end = index.indexOf(endNode);
+        if (end < 0) {
+            return new SearchBudget(limits).result(Collections.emptySet());
+        }
+        return new ShortestPathSearch(index, landmarks).searchShortest(start, end, limits);
+    }
+
+    /**
+     * Searches for the best path between two nodes on behalf of a Multigraph.
+     */
+    static SearchResult<IndexedPath> searchBest(Adjacency index, Landmarks landmarks,
+                                                Node startNode, Node endNode, SearchLimits limits) {
+        int start = ShortestPathSearch.indexOfStart(index, startNode);
+        int end = index.indexOf(endNode);
+        if (end < 0) {
+            return new SearchBudget(limits).result(null);
+        }
+        BestRouteSearch search = new BestRouteSearch(index);
+        search.setLandmarks(landmarks);
+        return search.search(start, end, limits);
+    }
+
+    private static int indexOfStart(Adjacency index, Node startNode) {
+        int start = index.indexOf(startNode);
+        // Break early and loudly
+        if (start < 0) {
+            throw new IllegalArgumentException("Node is not part of the graph.");
+        }
+        return start;
+    }
+
+    private void addParent(int node, int edge) {
+        if (this.parents == this.parentEdges.length) {
+            this.parentEdges = Arrays.copyOf(this.parentEdges, 2 * this.parents);
+            this.parentNext = Arrays.copyOf(this.parentNext, 2 * this.parents);
+        }
+        this.parentEdges[this.parents] = edge;
+        this.parentNext[this.parents] = this.parentHead[node];
+        this.parentHead[node] = this.parents++;
+    }
+
+    /**
+     * Returns the set of all the shortest paths from start to end.
+     */
+    Set<IndexedPath> searchShortest(int start, int end) {
+        return this.searchShortest(start, end, null).getValue();
+    }
+
+    /**
+     * Searches the shortest paths from start to end within the given limits,
+     * or without limits if null.
+     */
+    SearchResult<Set<IndexedPath>> searchShortest(int start, int end, SearchLimits limits) {
+        SearchBudget budget = new SearchBudget(limits);
+        int n = this.index.getNodeCount();
+        int[] distance = new int[n];
+        int[] queue = new int[n];
+        Arrays.fill(distance, -1);
+        Arrays.fill(this.parentHead, -1);
+        this.parents = 0;
+        this.settled = 0;
+        if (this.landmarks != null) {
+            this.searchTowards(start, end, distance, budget);
+            return this.backtrack(start, end, distance[end], budget);
+        }
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        distance[start] = 0;
+        // Each loop evaluates the nodes at the same distance
+        while (head < tail && distance[end] < 0 && !budget.isExhausted()) {
+            int batchEnd = tail;
+            while (head < batchEnd && budget.expand()) {
+                int v = queue[head++];
+                for (int e = this.index.getFirstEdge(v); e < this.index.getEndEdge(v); e++) {
+                    int w = this.index.getTarget(e);
+                    if (distance[w] < 0) {
+                        distance[w] = distance[v] + 1;
+                        queue[tail++] = w;
+                    }
+                    // Annotate the edges that get to a node through a shortest path
+                    if (distance[w] == distance[v] + 1) {
+                        this.addParent(w, e);
+                    }
+                }
+            }
+        }
+        this.settled = head;
+        return this.backtrack(start, end, distance[end], budget);
+    }
+
+    /**
+     * Annotates the edges of the shortest paths from start to end like
+     * searchShortest() does, evaluating nodes in order of distance from the
+     * start plus lower bound to the end (A*).
+     *
+     * <p>
+     * The bounds of the landmarks never decrease by more than one along an
+     * edge, so nodes are evaluated once, with their final distance. Every node
+     * on a shortest path has a distance plus bound of at most the distance to
+     * the end, so evaluating up to there annotates all the paths.
+     */
+    private void searchTowards(int start, int end, int[] distance, SearchBudget budget) {
+        int[] bound = new int[this.index.getNodeCount()];
+        Arrays.fill(bound, -1);
+        bound[start] = this.landmarks.getLowerBound(start, end);
+        if (bound[start] == Landmarks.UNREACHED) return;
+        this.heap.clear();
+        distance[start] = 0;
+        this.heap.push(bound[start], start);
+        while (!this.heap.isEmpty()) {
+            long estimate = this.heap.peekKey();
+            int v = this.heap.peekValue();
+            this.heap.pop();
+            if (distance[end] >= 0 && estimate > distance[end]) break;
+            // Skip nodes already evaluated with a shorter distance
+            if (estimate > distance[v] + bound[v]) continue;
+            if (!budget.expand()) break;
+            this.settled++;
+            if (v == end) continue;
+            for (int e = this.index.getFirstEdge(v); e < this.index.getEndEdge(v); e++) {
+                int w = this.index.getTarget(e);
+                if (bound[w] < 0) {
+                    bound[w] = this.landmarks.getLowerBound(w, end);
+                }
+                // The landmarks prove there is no way to the end from there
+                if (bound[w] == Landmarks.UNREACHED) continue;
+                int next = distance[v] + 1;
+                if (distance[w] < 0 || next < distance[w]) {
+                    distance[w] = next;
+                    this.parentHead[w] = -1;
+                    this.addParent(w, e);
+                    this.heap.push((long) next + bound[w], w);
+                } else if (next == distance[w]) {
+                    this.addParent(w, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes evaluated by the last search.
+     */
+    int getSettledCount() {
+        return this.settled;
+    }
+
+    /**
+     * Returns all the annotated paths from start to end, which is at the given
+     * distance, or as many as the budget allows. If the budget ran out before,
+     * the annotations may be incomplete and no path is returned.
+     */
+    private SearchResult<Set<IndexedPath>> backtrack(int start, int end, int length, SearchBudget budget) {
+        List<IndexedPath> paths = new ArrayList<>();
+        if (length < 0 || budget.isExhausted()) {
+            return budget.result(new PathSet(paths));
+        }
+
+        // Walk back from the end node, nodes[k] being the node at distance k
+        // and cursor[k] the next annotated edge to try to get there
+        int[] nodes = new int[length + 1];
+        int[] labels = new int[length];
+        int[] cursor = new int[length + 1];
+        nodes[length] = end;
+        cursor[length] = this.parentHead[end];
+        int k = length;
+        while (k <= length) {
+            if (k == 0) {
+                if (!budget.enumerate()) break;
+                paths.add(new IndexedPath(this.index, nodes.clone(), labels.clone()));
+                k++;
+                continue;
+            }
+            if (!budget.tick()) break;
+            int p = cursor[k];
+            // Every way to get to this node has been tried
+            if (p < 0) {
+                k++;
+                continue;
+            }
+            cursor[k] = this.parentNext[p];
+            int e = this.parentEdges[p];
+            labels[k - 1] = this.index.getEdgeLabel(e);
+            nodes[k - 1] = this.index.getSource(e);
+            k--;
+            if (k > 0) {
+                cursor[k] = this.parentHead[nodes[k]];
+            }
+        }
+        return budget.result(new PathSet(paths));
+    }
+
+    /**
+     * Set of paths known to be distinct, so they are never hashed.
+     */
+    private static final class PathSet extends AbstractSet<IndexedPath> {
+        private final List<IndexedPath> paths;
+
+        private PathSet(List<IndexedPath> paths) {
+            this.paths = Collections.unmodifiableList(paths);
+        }
+
+        @Override
+        public Iterator<IndexedPath> iterator() {
+            return this.paths.iterator();
+        }
+
+        @Override
+        public int size() {
+            return this.paths.size();
+        }
+    }
+}
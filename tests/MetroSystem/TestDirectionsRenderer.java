@@ -0,0 +1,53 @@
+package MetroSystem;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.junit.Before;
+
+import MultigraphADT.*;
+
+public class TestDirectionsRenderer {
+    private IndexedMultigraph graph;
+    private Node[] ns;
+
+    @Before
+    public void setUp() {
+        graph = new IndexedMultigraph();
+        ns = new Node[4];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = graph.createNode(Integer.toString(i), "Station" + i);
+            graph.addNode(ns[i]);
+        }
+        graph.addBidirectionalEdge(graph.createEdge(ns[0], ns[1], "Red"));
+        graph.addBidirectionalEdge(graph.createEdge(ns[1], ns[2], "Red"));
+        graph.addBidirectionalEdge(graph.createEdge(ns[2], ns[3], "Blue"));
+    }
+
+    private String render(IndexedPath path) throws IOException {
+        StringBuilder out = new StringBuilder();
+        DirectionsRenderer.render(path, out);
+        return out.toString();
+    }
+
+    @Test
+    public void test_directions() throws IOException {
+        assertEquals("You start at station Station0.\n\n"
+                     + "- Take lane Red.\n"
+                     + "- Go to Station1.\n"
+                     + "- Go to Station2.\n"
+                     + "- Take lane Blue.\n"
+                     + "- Go to Station3.\n"
+                     + "\nYou are now at your destination.\n",
+                     render(graph.searchBest(ns[0], ns[3])));
+    }
+
+    @Test
+    public void test_no_path_and_trivial_path() throws IOException {
+        Node alone = graph.createNode("4", "Station4");
+        graph.addNode(alone);
+        assertEquals("There is no path between those stations.\n", render(graph.searchBest(ns[0], alone)));
+        assertEquals("Start end end stations are the same, the path is trivial.\n", render(graph.searchBest(ns[0], ns[0])));
+    }
+}
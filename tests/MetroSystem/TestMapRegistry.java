@@ -0,0 +1,199 @@
+package MetroSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+import MultigraphADT.*;
+
+public class TestMapRegistry {
+    private static final String MAP = "sample.txt";
+
+    private long mapFootprint;
+    private AtomicInteger loads;
+    private List<Path> files;
+
+    /**
+     * Counts the maps it loads, slowly, to let other threads pile up.
+     */
+    private class CountingRegistry extends MapRegistry {
+        private CountingRegistry(long memoryBudget) {
+            super(memoryBudget);
+        }
+
+        @Override
+        protected IndexedMultigraph load(String filename) throws IOException, MetroMapParser.InvalidMetroMap {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.load(filename);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        IndexedMultigraph graph = new IndexedMultigraph();
+        MetroMapParser.parse(MAP, graph);
+        mapFootprint = MapRegistry.estimateFootprint(graph);
+        loads = new AtomicInteger();
+        files = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private MapRegistry createRegistry(int maps) {
+        MapRegistry registry = new CountingRegistry(maps * mapFootprint);
+        for (String network : Arrays.asList("boston", "lisbon", "porto")) {
+            registry.register(network, MAP);
+        }
+        return registry;
+    }
+
+    @Test
+    public void test_lazy_loading() throws Exception {
+        MapRegistry registry = createRegistry(3);
+        assertEquals(0, loads.get());
+        assertFalse(registry.isLoaded("boston"));
+        IndexedMultigraph boston = registry.get("boston");
+        assertSame(boston, registry.get("boston"));
+        assertEquals(1, loads.get());
+        assertTrue(registry.isLoaded("boston"));
+        assertFalse(registry.isLoaded("lisbon"));
+        assertEquals(mapFootprint, registry.getFootprint());
+    }
+
+    @Test
+    public void test_least_recently_used_evicted() throws Exception {
+        MapRegistry registry = createRegistry(2);
+        IndexedMultigraph boston = registry.get("boston");
+        registry.get("lisbon");
+        registry.get("boston");
+        registry.get("porto");
+        assertTrue(registry.isLoaded("boston"));
+        assertFalse(registry.isLoaded("lisbon"));
+        assertTrue(registry.isLoaded("porto"));
+        assertEquals(2 * mapFootprint, registry.getFootprint());
+        assertEquals(3, loads.get());
+
+        registry.get("lisbon");
+        assertFalse(registry.isLoaded("boston"));
+        assertEquals(4, loads.get());
+        assertNotSame(boston, registry.get("boston"));
+    }
+
+    @Test
+    public void test_map_over_budget_kept_alone() throws Exception {
+        MapRegistry registry = createRegistry(0);
+        registry.get("boston");
+        registry.get("lisbon");
+        assertFalse(registry.isLoaded("boston"));
+        assertTrue(registry.isLoaded("lisbon"));
+        assertEquals(mapFootprint, registry.getFootprint());
+    }
+
+    @Test
+    public void test_concurrent_first_access() throws Exception {
+        MapRegistry registry = createRegistry(3);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IndexedMultigraph>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String network = i % 2 == 0 ? "boston" : "lisbon";
+            Callable<IndexedMultigraph> query = () -> {
+                start.await();
+                return registry.get(network);
+            };
+            results.add(pool.submit(query));
+        }
+        start.countDown();
+        for (int i = 0; i < threads; i++) {
+            assertSame(results.get(i % 2).get(), results.get(i).get());
+        }
+        pool.shutdown();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void test_registry_file() throws Exception {
+        Path map = File.createTempFile("map", ".txt").toPath();
+        Path list = map.resolveSibling(map.getFileName() + ".networks");
+        files.add(map);
+        files.add(list);
+        Files.copy(new File(MAP).toPath(), map, StandardCopyOption.REPLACE_EXISTING);
+        Files.write(list, Arrays.asList("# name map", "", "boston " + map.getFileName()));
+
+        MapRegistry registry = MapRegistry.read(list, Long.MAX_VALUE);
+        assertEquals(1, registry.getNetworks().size());
+        assertEquals(mapFootprint, MapRegistry.estimateFootprint(registry.get("boston")));
+    }
+
+    @Test
+    public void test_stale_landmarks_skipped() throws Exception {
+        Path map = File.createTempFile("map", ".txt").toPath();
+        Path landmarks = LandmarkPreprocessor.getLandmarksFile(map.toString());
+        files.add(map);
+        files.add(landmarks);
+        Files.copy(new File(MAP).toPath(), map, StandardCopyOption.REPLACE_EXISTING);
+
+        // Landmarks of another map
+        IndexedMultigraph other = new IndexedMultigraph();
+        Node a = other.createNode("a", "A");
+        Node b = other.createNode("b", "B");
+        other.addBidirectionalEdge(other.createEdge(a, b, "blue"));
+        Landmarks.select(other.getAdjacency(), 1).write(landmarks);
+        MapRegistry registry = new MapRegistry(Long.MAX_VALUE);
+        registry.register("boston", map.toString());
+        assertNull(registry.get("boston").getLandmarks());
+
+        IndexedMultigraph graph = new IndexedMultigraph();
+        MetroMapParser.parse(map.toString(), graph);
+        Landmarks.select(graph.getAdjacency(), 2).write(landmarks);
+        assertNotNull(new MapRegistry(Long.MAX_VALUE).load(map.toString()).getLandmarks());
+    }
+
+    @Test
+    public void test_landmarks_counted() throws Exception {
+        IndexedMultigraph graph = new IndexedMultigraph();
+        MetroMapParser.parse(MAP, graph);
+        graph.setLandmarks(Landmarks.select(graph.getAdjacency(), 4));
+        assertEquals(mapFootprint + 8L * 4 * graph.getAdjacency().getNodeCount(),
+                     MapRegistry.estimateFootprint(graph));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_unknown_network() throws Exception {
+        createRegistry(1).get("paris");
+    }
+}
@@ -0,0 +1,126 @@
+package MetroSystem;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static MultigraphADT.GraphFixtures.getNumberOfSwitches;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+import MultigraphADT.*;
+
+public class TestRouteCoordinator {
+    private static final String MAP = "sample.txt";
+    private static final int PARTITIONS = 3;
+
+    private Multigraph graph;
+    private List<Process> workers;
+    private RouteCoordinator coordinator;
+
+    /**
+     * Starts a worker process and returns the port it listens on.
+     */
+    private int startWorker(int partition) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                             "MetroSystem.PartitionWorker", MAP,
+                                             Integer.toString(PARTITIONS), Integer.toString(partition), "0")
+                              .redirectError(ProcessBuilder.Redirect.INHERIT)
+                              .start();
+        workers.add(process);
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line = out.readLine();
+        assertTrue(line != null && line.startsWith("Listening on port "));
+        return Integer.parseInt(line.substring("Listening on port ".length()));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        graph = new IndexedMultigraph();
+        MetroMapParser.parse(MAP, graph);
+        workers = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int p = 0; p < PARTITIONS; p++) {
+            addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), startWorker(p)));
+        }
+        coordinator = new RouteCoordinator(addresses);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (coordinator != null) coordinator.close();
+        for (Process process : workers) {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private void assertValidPath(Node start, Node end, List<Edge> path) {
+        Node at = start;
+        for (Edge e : path) {
+            assertEquals(at, e.getStartNode());
+            assertTrue(graph.getOutgoingEdges(at).contains(e));
+            at = e.getEndNode();
+        }
+        assertEquals(end, at);
+    }
+
+    @Test
+    public void test_partitions_split_the_map() {
+        AdjacencyIndex index = AdjacencyIndex.of(graph);
+        LinePartitioning partitioning = LinePartitioning.of(index, PARTITIONS);
+        int edges = 0;
+        for (int p = 0; p < PARTITIONS; p++) {
+            edges += partitioning.getPartition(p).getEdges().size();
+        }
+        assertEquals(index.getEdgeCount(), edges);
+    }
+
+    @Test
+    public void test_same_station() throws IOException {
+        assertEquals(new ArrayList<Edge>(), coordinator.searchBest("1", "1"));
+    }
+
+    @Test
+    public void test_unknown_station() throws IOException {
+        assertNull(coordinator.searchBest("1", "nowhere"));
+    }
+
+    @Test
+    public void test_same_results_as_single_process() throws IOException {
+        Node[] stations = graph.getNodes().toArray(new Node[0]);
+        Random random = new Random(GraphFixtures.SEED);
+        for (int i = 0; i < 300; i++) {
+            Node start = stations[random.nextInt(stations.length)];
+            Node end = stations[random.nextInt(stations.length)];
+            // The best paths are the shortest ones with the fewest switches
+            Set<IndexedPath> shortest = graph.searchShortest(start, end);
+            List<Edge> path = coordinator.searchBest(start.getID(), end.getID());
+            if (shortest.isEmpty()) {
+                assertNull(path);
+                continue;
+            }
+            int fewest = Integer.MAX_VALUE;
+            for (IndexedPath candidate : shortest) {
+                fewest = Math.min(fewest, getNumberOfSwitches(candidate));
+            }
+            // Ties between equally good paths can be broken either way
+            assertValidPath(start, end, path);
+            assertEquals(shortest.iterator().next().size(), path.size());
+            assertEquals(fewest, getNumberOfSwitches(path));
+            assertTrue(shortest.contains(path));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package MetroSystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.Before;
+
+import MultigraphADT.*;
+
+public class TestRouteWriter {
+    private IndexedMultigraph graph;
+    private Node[] ns;
+    private ByteArrayOutputStream bytes;
+
+    @Before
+    public void setUp() {
+        graph = new IndexedMultigraph();
+        String[] names = {"Park", "Main, \"Old\" Street", "Harbour", "Hill", "Nowhere"};
+        ns = new Node[names.length];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = graph.createNode(Integer.toString(i), names[i]);
+            graph.addNode(ns[i]);
+        }
+        graph.addBidirectionalEdge(graph.createEdge(ns[0], ns[1], "Red"));
+        graph.addBidirectionalEdge(graph.createEdge(ns[1], ns[2], "Red"));
+        graph.addBidirectionalEdge(graph.createEdge(ns[2], ns[3], "Blue"));
+        bytes = new ByteArrayOutputStream();
+    }
+
+    private RouteWriter open(RouteWriter.Format format) throws IOException {
+        return RouteWriter.create(format, graph.getAdjacency(), Channels.newChannel(bytes));
+    }
+
+    private int indexOf(Node node) {
+        return graph.getAdjacency().indexOf(node);
+    }
+
+    private void writeRoutes(RouteWriter writer) throws IOException {
+        writer.writeRoute(7, indexOf(ns[0]), indexOf(ns[3]), graph.searchBest(ns[0], ns[3]));
+        writer.writeRoute(8, indexOf(ns[0]), indexOf(ns[4]), graph.searchBest(ns[0], ns[4]));
+        writer.writeRoute(9, indexOf(ns[2]), indexOf(ns[2]), graph.searchBest(ns[2], ns[2]));
+    }
+
+    @Test
+    public void test_jsonl() throws IOException {
+        try (RouteWriter writer = open(RouteWriter.Format.JSONL)) {
+            writeRoutes(writer);
+            writer.writeCost(10, indexOf(ns[3]), indexOf(ns[0]), 3, 2);
+        }
+        String park = "{\"id\":\"0\",\"name\":\"Park\"}";
+        String main = "{\"id\":\"1\",\"name\":\"Main, \\\"Old\\\" Street\"}";
+        String harbour = "{\"id\":\"2\",\"name\":\"Harbour\"}";
+        String hill = "{\"id\":\"3\",\"name\":\"Hill\"}";
+        String nowhere = "{\"id\":\"4\",\"name\":\"Nowhere\"}";
+        assertEquals("{\"query\":7,\"alternative\":0,\"status\":\"COMPLETE\",\"from\":" + park + ",\"to\":" + hill
+                     + ",\"found\":true,\"length\":3,\"switches\":2,\"legs\":["
+                     + "{\"line\":\"Red\",\"stations\":[" + park + "," + main + "," + harbour + "]},"
+                     + "{\"line\":\"Blue\",\"stations\":[" + harbour + "," + hill + "]}]}\n"
+                     + "{\"query\":8,\"alternative\":0,\"status\":\"COMPLETE\",\"from\":" + park + ",\"to\":" + nowhere
+                     + ",\"found\":false}\n"
+                     + "{\"query\":9,\"alternative\":0,\"status\":\"COMPLETE\",\"from\":" + harbour + ",\"to\":" + harbour
+                     + ",\"found\":true,\"length\":0,\"switches\":0,\"legs\":[]}\n"
+                     + "{\"query\":10,\"from\":" + hill + ",\"to\":" + park
+                     + ",\"found\":true,\"length\":3,\"switches\":2}\n",
+                     bytes.toString("UTF-8"));
+    }
+
+    @Test
+    public void test_csv() throws IOException {
+        try (RouteWriter writer = open(RouteWriter.Format.CSV)) {
+            writeRoutes(writer);
+        }
+        assertEquals("query,alternative,status,step,line,from_id,from_name,to_id,to_name\n"
+                     + "7,0,COMPLETE,0,Red,0,Park,1,\"Main, \"\"Old\"\" Street\"\n"
+                     + "7,0,COMPLETE,1,Red,1,\"Main, \"\"Old\"\" Street\",2,Harbour\n"
+                     + "7,0,COMPLETE,2,Blue,2,Harbour,3,Hill\n"
+                     + "8,,COMPLETE,,,0,Park,4,Nowhere\n"
+                     + "9,0,COMPLETE,,,2,Harbour,2,Harbour\n",
+                     bytes.toString("UTF-8"));
+    }
+
+    @Test
+    public void test_csv_costs() throws IOException {
+        try (RouteWriter writer = open(RouteWriter.Format.CSV)) {
+            writer.writeCost(0, indexOf(ns[0]), indexOf(ns[2]), 2, 1);
+            writer.writeCost(1, indexOf(ns[0]), indexOf(ns[4]), -1, -1);
+        }
+        assertEquals("query,from_id,from_name,to_id,to_name,length,switches\n"
+                     + "0,0,Park,2,Harbour,2,1\n"
+                     + "1,0,Park,4,Nowhere,,\n",
+                     bytes.toString("UTF-8"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_csv_one_kind_of_record() throws IOException {
+        try (RouteWriter writer = open(RouteWriter.Format.CSV)) {
+            writer.writeCost(0, indexOf(ns[0]), indexOf(ns[2]), 2, 1);
+            writeRoutes(writer);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_path_of_another_graph() throws IOException {
+        try (RouteWriter writer = open(RouteWriter.Format.JSONL)) {
+            // The graph changed since the writer encoded its names
+            graph.addBidirectionalEdge(graph.createEdge(ns[3], ns[4], "Green"));
+            IndexedPath path = graph.searchBest(ns[0], ns[3]);
+            writer.writeAlternatives(0, indexOf(ns[0]), indexOf(ns[3]), Arrays.asList(path));
+        }
+    }
+
+    @Test
+    public void test_search_cut_short() throws IOException {
+        // Two shortest routes from Park to Harbour, only one is enumerated
+        graph.addBidirectionalEdge(graph.createEdge(ns[0], ns[1], "Green"));
+        SearchResult<Set<IndexedPath>> result = graph.searchShortest(ns[0], ns[2], SearchLimits.NONE.withMaxPaths(1));
+        try (RouteWriter writer = open(RouteWriter.Format.CSV)) {
+            writer.writeAlternatives(0, indexOf(ns[0]), indexOf(ns[2]), result);
+            writer.writeAlternatives(1, indexOf(ns[0]), indexOf(ns[4]),
+                                     graph.searchShortest(ns[0], ns[4], SearchLimits.NONE.withMaxPaths(1)));
+        }
+        String[] rows = bytes.toString("UTF-8").split("\n");
+        assertEquals(4, rows.length);
+        assertTrue(rows[1].startsWith("0,0,BUDGET_EXHAUSTED,0,"));
+        assertTrue(rows[2].startsWith("0,0,BUDGET_EXHAUSTED,1,Red,"));
+        assertEquals("1,,COMPLETE,,,0,Park,4,Nowhere", rows[3]);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] text = new byte[in.readInt()];
+        in.readFully(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void test_binary() throws IOException {
+        try (RouteWriter writer = open(RouteWriter.Format.BINARY)) {
+            writeRoutes(writer);
+            writer.writeCost(10, indexOf(ns[3]), indexOf(ns[0]), 3, 2);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(BinaryRouteWriter.MAGIC, in.readInt());
+        String[] ids = new String[in.readInt()];
+        String[] names = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = readString(in);
+            names[i] = readString(in);
+        }
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4"), Arrays.asList(ids));
+        assertEquals("Main, \"Old\" Street", names[1]);
+        String[] lines = new String[in.readInt()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = readString(in);
+        }
+
+        assertEquals(BinaryRouteWriter.ROUTE, in.readByte());
+        assertEquals(7, in.readLong());
+        assertEquals(0, in.readInt());
+        assertEquals(SearchResult.Status.COMPLETE.ordinal(), in.readByte());
+        assertEquals("0", ids[in.readInt()]);
+        assertEquals("3", ids[in.readInt()]);
+        assertEquals(3, in.readInt());
+        assertEquals(2, in.readInt());
+        assertEquals("Red", lines[in.readInt()]);
+        assertEquals(2, in.readInt());
+        assertEquals("1", ids[in.readInt()]);
+        assertEquals("2", ids[in.readInt()]);
+        assertEquals("Blue", lines[in.readInt()]);
+        assertEquals(1, in.readInt());
+        assertEquals("3", ids[in.readInt()]);
+
+        assertEquals(BinaryRouteWriter.ROUTE, in.readByte());
+        assertEquals(8, in.readLong());
+        assertEquals(-1, in.readInt());
+        assertEquals(SearchResult.Status.COMPLETE.ordinal(), in.readByte());
+        assertEquals("0", ids[in.readInt()]);
+        assertEquals("4", ids[in.readInt()]);
+        assertEquals(-1, in.readInt());
+        assertEquals(-1, in.readInt());
+
+        assertEquals(BinaryRouteWriter.ROUTE, in.readByte());
+        assertEquals(9, in.readLong());
+        assertEquals(0, in.readInt());
+        assertEquals(SearchResult.Status.COMPLETE.ordinal(), in.readByte());
+        in.readInt();
+        in.readInt();
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.readInt());
+
+        assertEquals(BinaryRouteWriter.COST, in.readByte());
+        assertEquals(10, in.readLong());
+        assertEquals("3", ids[in.readInt()]);
+        assertEquals("0", ids[in.readInt()]);
+        assertEquals(3, in.readInt());
+        assertEquals(2, in.readInt());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void test_more_than_the_buffer() throws IOException {
+        int routes = 20000;
+        try (RouteWriter writer = open(RouteWriter.Format.JSONL)) {
+            for (int i = 0; i < routes; i++) {
+                writer.writeAlternatives(i, indexOf(ns[0]), indexOf(ns[3]), graph.searchShortest(ns[0], ns[3]));
+            }
+        }
+        String[] written = bytes.toString("UTF-8").split("\n");
+        assertEquals(routes, written.length);
+        assertEquals(written[0].replace("\"query\":0,", "\"query\":" + (routes - 1) + ","), written[routes - 1]);
+    }
+}
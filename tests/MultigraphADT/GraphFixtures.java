@@ -0,0 +1,75 @@
+package MultigraphADT;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Graphs and helpers shared by the tests of both packages.
+ */
+public final class GraphFixtures {
+    /**
+     * Seed of the random graphs and queries of the tests
+     */
+    public static final long SEED = 308;
+
+    private GraphFixtures() {
+    }
+
+    /**
+     * Creates the nodes n0, n1... without names. They join the graph with
+     * their first edge.
+     */
+    public static Node[] createNodes(Multigraph graph, int n) {
+        return IntStream.range(0, n)
+                        .mapToObj(i -> String.format("n%d", i))
+                        .map(i -> graph.createNode(i, ""))
+                        .toArray(Node[]::new);
+    }
+
+    /**
+     * Adds an edge in both directions and returns it.
+     */
+    public static Edge connect(Multigraph graph, Node start, Node end, String label) {
+        Edge e = graph.createEdge(start, end, label);
+        graph.addBidirectionalEdge(e);
+        return e;
+    }
+
+    /**
+     * Connects the nodes with a random tree plus the given number of random
+     * extra edges, in both directions, on random lines. Every given graph gets
+     * the same edges.
+     */
+    public static void connectRandomly(Random random, Node[] ns, String[] lines, int extraEdges,
+                                       Multigraph... graphs) {
+        for (int i = 1; i < ns.length; i++) {
+            connectAll(graphs, ns[random.nextInt(i)], ns[i], lines[random.nextInt(lines.length)]);
+        }
+        for (int i = 0; i < extraEdges; i++) {
+            connectAll(graphs, ns[random.nextInt(ns.length)], ns[random.nextInt(ns.length)],
+                       lines[random.nextInt(lines.length)]);
+        }
+    }
+
+    private static void connectAll(Multigraph[] graphs, Node start, Node end, String label) {
+        for (Multigraph graph : graphs) {
+            connect(graph, start, end, label);
+        }
+    }
+
+    /**
+     * Counts the lines taken by a path, the first one included.
+     */
+    public static int getNumberOfSwitches(List<Edge> path) {
+        int switches = 0;
+        String previousLabel = null;
+        for (Edge e : path) {
+            if (!e.getLabel().equals(previousLabel)) {
+                switches++;
+                previousLabel = e.getLabel();
+            }
+        }
+        return switches;
+    }
+}
@@ -0,0 +1,75 @@
+package MultigraphADT;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static MultigraphADT.GraphFixtures.connect;
+import static MultigraphADT.GraphFixtures.connectRandomly;
+import static MultigraphADT.GraphFixtures.createNodes;
+import static MultigraphADT.GraphFixtures.getNumberOfSwitches;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.Before;
+
+public class TestBestRouteSearch {
+    private IndexedMultigraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new IndexedMultigraph();
+    }
+
+    @Test
+    public void test_unconnected_nodes() {
+        Node[] ns = createNodes(graph, 2);
+        graph.addNode(ns[0]);
+        graph.addNode(ns[1]);
+        AdjacencyIndex index = AdjacencyIndex.of(graph);
+        BestRouteSearch search = new BestRouteSearch(index);
+        search.search(index.indexOf(ns[0]));
+        assertFalse(search.isReached(index.indexOf(ns[1])));
+        assertEquals(null, search.getPath(index.indexOf(ns[1])));
+        assertTrue(search.getPath(index.indexOf(ns[0])).isEmpty());
+    }
+
+    private static int getFewestSwitches(Set<IndexedPath> paths) {
+        int fewest = Integer.MAX_VALUE;
+        for (IndexedPath path : paths) {
+            fewest = Math.min(fewest, getNumberOfSwitches(path));
+        }
+        return fewest;
+    }
+
+    @Test
+    public void test_matches_search_best() {
+        Node[] ns = createNodes(graph, 60);
+        String[] lines = {"blue", "red", "green", "orange"};
+        connectRandomly(new Random(GraphFixtures.SEED), ns, lines, 40, graph);
+
+        AdjacencyIndex index = AdjacencyIndex.of(graph);
+        BestRouteSearch search = new BestRouteSearch(index);
+        for (Node start : ns) {
+            search.search(index.indexOf(start));
+            for (Node end : ns) {
+                // The best paths are the shortest ones with the fewest switches
+                Set<IndexedPath> shortest = graph.searchShortest(start, end);
+                List<Edge> path = search.getPath(index.indexOf(end));
+                if (shortest.isEmpty()) {
+                    assertNull(path);
+                    continue;
+                }
+                int length = shortest.iterator().next().size();
+                int switches = getFewestSwitches(shortest);
+                assertEquals(length, path.size());
+                assertEquals(length, search.getLength(index.indexOf(end)));
+                assertEquals(switches, getNumberOfSwitches(path));
+                assertEquals(switches, search.getSwitches(index.indexOf(end)));
+                assertTrue(shortest.contains(path));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package MultigraphADT;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static MultigraphADT.GraphFixtures.connect;
+import static MultigraphADT.GraphFixtures.connectRandomly;
+import static MultigraphADT.GraphFixtures.createNodes;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.junit.Before;
+
+public class TestCriticalityAnalysis {
+    private IndexedMultigraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new IndexedMultigraph();
+    }
+
+    private CriticalityAnalysis analyse() {
+        return CriticalityAnalysis.analyse(AdjacencyIndex.of(graph), new ForkJoinPool(3));
+    }
+
+    /**
+     * Computes betweenness by enumerating every shortest path.
+     */
+    private double bruteForceBetweenness(Node node) {
+        double score = 0;
+        for (Node s : graph.getNodes()) {
+            for (Node t : graph.getNodes()) {
+                if (s.equals(t) || s.equals(node) || t.equals(node)) continue;
+                Set<IndexedPath> paths = graph.searchShortest(s, t);
+                if (paths.isEmpty()) continue;
+                long through = paths.stream()
+                                    .filter(p -> p.stream().anyMatch(e -> e.getEndNode().equals(node)))
+                                    .count();
+                score += (double) through / paths.size();
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Counts the ordered pairs of nodes that can reach each other.
+     */
+    private long reachablePairs(Multigraph g) {
+        long pairs = 0;
+        for (Node s : g.getNodes()) {
+            for (Node t : g.getNodes()) {
+                if (!s.equals(t) && g.searchBest(s, t) != null) pairs++;
+            }
+        }
+        return pairs;
+    }
+
+    private Multigraph without(Node removed) {
+        Multigraph g = new IndexedMultigraph();
+        for (Node n : graph.getNodes()) {
+            if (!n.equals(removed)) g.addNode(n);
+        }
+        for (Edge e : graph.getEdges()) {
+            if (!e.getStartNode().equals(removed) && !e.getEndNode().equals(removed)) g.addEdge(e);
+        }
+        return g;
+    }
+
+    @Test
+    public void test_line_betweenness() {
+        Node[] ns = createNodes(graph, 3);
+        connect(graph, ns[0], ns[1], "blue");
+        connect(graph, ns[1], ns[2], "blue");
+        CriticalityAnalysis analysis = analyse();
+        Adjacency index = analysis.getIndex();
+        assertEquals(0.0, analysis.getNodeBetweenness(index.indexOf(ns[0])), 1e-9);
+        // n0 -> n2 and n2 -> n0
+        assertEquals(2.0, analysis.getNodeBetweenness(index.indexOf(ns[1])), 1e-9);
+        assertEquals(2L, analysis.getNodeReachabilityLoss(index.indexOf(ns[1])));
+        assertEquals(0L, analysis.getNodeReachabilityLoss(index.indexOf(ns[0])));
+    }
+
+    @Test
+    public void test_parallel_lines_are_not_bridges() {
+        Node[] ns = createNodes(graph, 3);
+        connect(graph, ns[0], ns[1], "blue");
+        connect(graph, ns[0], ns[1], "red");
+        connect(graph, ns[1], ns[2], "red");
+        CriticalityAnalysis analysis = analyse();
+        Adjacency index = analysis.getIndex();
+        for (int e = 0; e < index.getEdgeCount(); e++) {
+            boolean bridge = index.getNode(index.getSource(e)).equals(ns[2])
+                          || index.getNode(index.getTarget(e)).equals(ns[2]);
+            // Removing n1 -- n2 cuts n2 off from n0 and n1
+            assertEquals(bridge ? 4L : 0L, analysis.getEdgeReachabilityLoss(e));
+        }
+    }
+
+    @Test
+    public void test_matches_brute_force() {
+        Node[] ns = createNodes(graph, 14);
+        String[] lines = {"blue", "red", "green"};
+        connectRandomly(new Random(GraphFixtures.SEED), ns, lines, 6, graph);
+
+        CriticalityAnalysis analysis = analyse();
+        Adjacency index = analysis.getIndex();
+        long pairs = reachablePairs(graph);
+        for (Node n : ns) {
+            int v = index.indexOf(n);
+            assertEquals(bruteForceBetweenness(n), analysis.getNodeBetweenness(v), 1e-9);
+            long remaining = reachablePairs(without(n));
+            long involving = 2L * (graph.getNodes().size() - 1);
+            assertEquals(pairs - involving - remaining, analysis.getNodeReachabilityLoss(v));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package MultigraphADT;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static MultigraphADT.GraphFixtures.connect;
+import static MultigraphADT.GraphFixtures.createNodes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.Before;
+
+public class TestIndexedPath {
+    private IndexedMultigraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new IndexedMultigraph();
+    }
+
+    @Test
+    public void test_legs() {
+        Node[] ns = createNodes(graph, 5);
+        Edge e1 = connect(graph, ns[0], ns[1], "red");
+        Edge e2 = connect(graph, ns[1], ns[2], "red");
+        Edge e3 = connect(graph, ns[2], ns[3], "blue");
+        Edge e4 = connect(graph, ns[3], ns[4], "red");
+
+        IndexedPath path = graph.searchBest(ns[0], ns[4]);
+        assertEquals(Arrays.asList(e1, e2, e3, e4), path);
+        assertEquals(ns[0], path.getStartNode());
+        assertEquals(ns[4], path.getEndNode());
+        assertEquals(3, path.getLegCount());
+        assertEquals(0, path.getLegStart(0));
+        assertEquals(2, path.getLegEnd(0));
+        assertEquals(3, path.getLegEnd(1));
+        assertEquals(4, path.getLegEnd(2));
+        assertEquals("blue", path.getAdjacency().getLabel(path.getLegLabel(1)));
+    }
+
+    @Test
+    public void test_trivial_path() {
+        Node[] ns = createNodes(graph, 2);
+        connect(graph, ns[0], ns[1], "red");
+
+        IndexedPath path = graph.searchBest(ns[1], ns[1]);
+        assertTrue(path.isEmpty());
+        assertEquals(0, path.getLegCount());
+        assertEquals(ns[1], path.getStartNode());
+        assertEquals(graph.searchBest(ns[0], ns[0]), path);
+    }
+
+    @Test
+    public void test_equal_to_other_lists() {
+        Node[] ns = createNodes(graph, 4);
+        Edge e1 = connect(graph, ns[0], ns[1], "red");
+        Edge e2 = connect(graph, ns[1], ns[3], "red");
+        Edge e3 = connect(graph, ns[0], ns[2], "blue");
+        Edge e4 = connect(graph, ns[2], ns[3], "blue");
+
+        Set<List<Edge>> expected = new HashSet<>();
+        expected.add(Arrays.asList(e1, e2));
+        expected.add(Arrays.asList(e3, e4));
+        Set<IndexedPath> paths = graph.searchShortest(ns[0], ns[3]);
+        assertEquals(expected, new HashSet<>(paths));
+        for (IndexedPath path : paths) {
+            assertTrue(expected.contains(path));
+            assertEquals(path.hashCode(), Arrays.asList(path.get(0), path.get(1)).hashCode());
+        }
+    }
+}
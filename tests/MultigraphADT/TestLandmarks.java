@@ -0,0 +1,241 @@
+package MultigraphADT;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static MultigraphADT.GraphFixtures.connect;
+import static MultigraphADT.GraphFixtures.createNodes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.junit.Before;
+
+import MetroSystem.LandmarkPreprocessor;
+
+public class TestLandmarks {
+    private IndexedMultigraph graph;
+    private Node[] ns;
+
+    @Before
+    public void setUp() {
+        graph = new IndexedMultigraph();
+    }
+
+    /**
+     * A grid of lines plus a few one way shortcuts and an unreachable corner.
+     */
+    private void createGrid(int side) {
+        ns = createNodes(graph, side * side + 2);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) connect(graph, ns[r * side + c], ns[r * side + c + 1], "row" + r);
+                if (r + 1 < side) connect(graph, ns[r * side + c], ns[(r + 1) * side + c], "col" + c);
+            }
+        }
+        Random random = new Random(GraphFixtures.SEED);
+        for (int i = 0; i < side; i++) {
+            Node start = ns[random.nextInt(side * side)];
+            Node end = ns[random.nextInt(side * side)];
+            graph.addEdge(graph.createEdge(start, end, "express"));
+        }
+        connect(graph, ns[side * side], ns[side * side + 1], "isolated");
+    }
+
+    private void assertSameResults(Landmarks landmarks) {
+        IndexedMultigraph plain = new IndexedMultigraph();
+        for (Edge e : graph.getEdges()) plain.addEdge(e);
+        graph.setLandmarks(landmarks);
+        Random random = new Random(GraphFixtures.SEED);
+        for (int i = 0; i < 200; i++) {
+            Node start = ns[random.nextInt(ns.length)];
+            Node end = ns[random.nextInt(ns.length)];
+            assertEquals(plain.searchShortest(start, end), graph.searchShortest(start, end));
+            IndexedPath expected = plain.searchBest(start, end);
+            IndexedPath path = graph.searchBest(start, end);
+            if (expected == null) {
+                assertEquals(null, path);
+            } else {
+                assertEquals(expected.size(), path.size());
+                assertEquals(expected.getLegCount(), path.getLegCount());
+            }
+        }
+    }
+
+    @Test
+    public void test_bounds_never_overestimate() {
+        createGrid(8);
+        AdjacencyIndex index = AdjacencyIndex.of(graph);
+        Landmarks landmarks = Landmarks.select(index, 4);
+        BestRouteSearch search = new BestRouteSearch(index);
+        for (int v = 0; v < index.getNodeCount(); v++) {
+            search.search(v);
+            for (int t = 0; t < index.getNodeCount(); t++) {
+                int bound = landmarks.getLowerBound(v, t);
+                if (search.isReached(t)) {
+                    assertTrue(bound <= search.getLength(t));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_farthest_same_results() {
+        createGrid(10);
+        assertSameResults(Landmarks.select(AdjacencyIndex.of(graph), 4, Landmarks.Selection.FARTHEST));
+    }
+
+    @Test
+    public void test_avoid_same_results() {
+        createGrid(10);
+        assertSameResults(Landmarks.select(AdjacencyIndex.of(graph), 4, Landmarks.Selection.AVOID));
+    }
+
+    @Test
+    public void test_fewer_nodes_settled() {
+        createGrid(20);
+        AdjacencyIndex index = AdjacencyIndex.of(graph);
+        Landmarks landmarks = Landmarks.select(index, 6);
+        ShortestPathSearch plain = new ShortestPathSearch(index);
+        ShortestPathSearch guided = new ShortestPathSearch(index, landmarks);
+        BestRouteSearch plainBest = new BestRouteSearch(index);
+        BestRouteSearch guidedBest = new BestRouteSearch(index);
+        guidedBest.setLandmarks(landmarks);
+        long plainSettled = 0;
+        long guidedSettled = 0;
+        long plainBestSettled = 0;
+        long guidedBestSettled = 0;
+        Random random = new Random(GraphFixtures.SEED);
+        for (int i = 0; i < 100; i++) {
+            int start = index.indexOf(ns[random.nextInt(400)]);
+            int end = index.indexOf(ns[random.nextInt(400)]);
+            assertEquals(plain.searchShortest(start, end), guided.searchShortest(start, end));
+            plainSettled += plain.getSettledCount();
+            guidedSettled += guided.getSettledCount();
+            plainBest.search(start, end);
+            guidedBest.search(start, end);
+            assertEquals(plainBest.getLength(end), guidedBest.getLength(end));
+            assertEquals(plainBest.getSwitches(end), guidedBest.getSwitches(end));
+            plainBestSettled += plainBest.getSettledCount();
+            guidedBestSettled += guidedBest.getSettledCount();
+        }
+        assertTrue(guidedSettled < plainSettled);
+        assertTrue(guidedBestSettled < plainBestSettled);
+    }
+
+    @Test
+    public void test_write_and_read() throws IOException {
+        createGrid(6);
+        AdjacencyIndex index = AdjacencyIndex.of(graph);
+        Landmarks landmarks = Landmarks.select(index, 3, Landmarks.Selection.AVOID);
+        Path file = File.createTempFile("landmarks", ".bin").toPath();
+        try {
+            landmarks.write(file);
+            Landmarks read = Landmarks.read(index, file);
+            assertEquals(landmarks.getCount(), read.getCount());
+            for (int v = 0; v < index.getNodeCount(); v++) {
+                for (int t = 0; t < index.getNodeCount(); t++) {
+                    assertEquals(landmarks.getLowerBound(v, t), read.getLowerBound(v, t));
+                }
+            }
+            connect(graph, ns[0], ns[ns.length - 1], "new");
+            try {
+                Landmarks.read(AdjacencyIndex.of(graph), file);
+                fail();
+            }
+            catch (IOException e) {
+                // The graph changed
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test_wrong_size_rejected() throws IOException {
+        createGrid(4);
+        AdjacencyIndex index = AdjacencyIndex.of(graph);
+        Path file = File.createTempFile("landmarks", ".bin").toPath();
+        try {
+            Landmarks.select(index, 2, Landmarks.Selection.FARTHEST).write(file);
+            Files.write(file, new byte[4], StandardOpenOption.APPEND);
+            try {
+                Landmarks.read(index, file);
+                fail();
+            }
+            catch (IOException e) {
+                // The counts in the header do not add up to the file
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test_only_fit_the_same_graph() {
+        createGrid(4);
+        AdjacencyIndex index = AdjacencyIndex.of(graph);
+        Landmarks landmarks = Landmarks.select(index, 2);
+        assertTrue(landmarks.fits(index));
+        assertTrue(landmarks.fits(AdjacencyIndex.of(graph)));
+
+        // Same nodes and edges, numbered in insertion order
+        try (OffHeapMultigraph offHeap = new OffHeapMultigraph()) {
+            for (Node n : ns) offHeap.addNode(n);
+            for (Edge e : graph.getEdges()) offHeap.addEdge(e);
+            assertEquals(index.getEdgeCount(), offHeap.getAdjacency().getEdgeCount());
+            assertFalse(landmarks.fits(offHeap.getAdjacency()));
+        }
+
+        // Same sizes, one edge on another line
+        IndexedMultigraph relabeled = new IndexedMultigraph();
+        for (Edge e : graph.getEdges()) {
+            boolean moved = e.getStartNode().equals(ns[0]) && e.getEndNode().equals(ns[1]);
+            relabeled.addEdge(moved ? relabeled.createEdge(ns[0], ns[1], "col0") : e);
+        }
+        assertEquals(index.getEdgeCount(), AdjacencyIndex.of(relabeled).getEdgeCount());
+        assertFalse(landmarks.fits(AdjacencyIndex.of(relabeled)));
+    }
+
+    @Test
+    public void test_stale_file_skipped() throws IOException {
+        createGrid(4);
+        Path map = File.createTempFile("map", ".txt").toPath();
+        Path file = LandmarkPreprocessor.getLandmarksFile(map.toString());
+        try {
+            // Landmarks of another version of the map
+            IndexedMultigraph other = new IndexedMultigraph();
+            connect(other, ns[0], ns[1], "blue");
+            Landmarks.select(other.getAdjacency(), 1).write(file);
+            assertFalse(LandmarkPreprocessor.load(map.toString(), graph));
+            assertNull(graph.getLandmarks());
+
+            Landmarks.select(graph.getAdjacency(), 2).write(file);
+            assertTrue(LandmarkPreprocessor.load(map.toString(), graph));
+            assertNotNull(graph.getLandmarks());
+        }
+        finally {
+            Files.deleteIfExists(file);
+            Files.delete(map);
+        }
+    }
+
+    @Test
+    public void test_dropped_on_change() {
+        createGrid(4);
+        graph.setLandmarks(Landmarks.select(AdjacencyIndex.of(graph), 2));
+        // A shortcut the landmarks do not know about
+        Edge shortcut = graph.createEdge(ns[0], ns[15], "new");
+        graph.addEdge(shortcut);
+        assertEquals(1, graph.searchBest(ns[0], ns[15]).size());
+    }
+}
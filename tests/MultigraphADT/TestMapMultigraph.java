@@ -140,4 +140,33 @@ public class TestMapMultigraph {
         Edge e8 = connect(ns[7], ns[4], "red");
         assertEquals(Arrays.asList(e5, e6, e7, e8), graph.searchBest(ns[0], ns[4]));
     }
+
+    @Test
+    public void test_edges_within_a_batch_are_not_taken() {
+        Node[] ns = createNodes(4);
+        Edge e1 = connect(ns[0], ns[1], "");
+        Edge e2 = connect(ns[0], ns[2], "");
+        Edge e3 = connect(ns[1], ns[2], "");
+        Edge e4 = connect(ns[2], ns[3], "");
+
+        Set<List<Edge>> result = new HashSet<>();
+        result.add(Arrays.asList(e2, e4));
+
+        assertEquals(result, graph.searchShortest(ns[0], ns[3]));
+    }
+
+    @Test
+    public void test_search_stops_at_the_end_node_batch() {
+        Node[] ns = createNodes(5);
+        Edge e1 = connect(ns[0], ns[1], "");
+        Edge e2 = connect(ns[0], ns[2], "");
+        Edge e3 = connect(ns[1], ns[3], "");
+        Edge e4 = connect(ns[2], ns[4], "");
+        Edge e5 = connect(ns[3], ns[4], "");
+
+        Set<List<Edge>> result = new HashSet<>();
+        result.add(Arrays.asList(e2, e4));
+
+        assertEquals(result, graph.searchShortest(ns[0], ns[4]));
+    }
 }
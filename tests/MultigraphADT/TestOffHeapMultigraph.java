@@ -0,0 +1,216 @@
+package MultigraphADT;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static MultigraphADT.GraphFixtures.connectRandomly;
+import static MultigraphADT.GraphFixtures.getNumberOfSwitches;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+public class TestOffHeapMultigraph {
+    private IndexedMultigraph expected;
+    private OffHeapMultigraph graph;
+    private Path directory;
+
+    @Before
+    public void setUp() {
+        expected = new IndexedMultigraph();
+        graph = new OffHeapMultigraph();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        graph.close();
+        if (directory != null) {
+            try (Stream<Path> files = Files.list(directory)) {
+                // The backing files are deleted on close
+                assertEquals(0, files.count());
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private Node[] createNodes(int n) {
+        Node[] nodes = new Node[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = graph.createNode(String.format("n%d", i), String.format("Station %d", i % 7));
+            expected.addNode(nodes[i]);
+            graph.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+
+    private void connect(Node start, Node end, String label) {
+        GraphFixtures.connect(expected, start, end, label);
+        GraphFixtures.connect(graph, start, end, label);
+    }
+
+    private Node[] createRandomGraph(long seed, int n, int extraEdges) {
+        Node[] ns = createNodes(n);
+        String[] lines = {"blue", "red", "green", "orange", "silver"};
+        connectRandomly(new Random(seed), ns, lines, extraEdges, expected, graph);
+        return ns;
+    }
+
+    private void assertSameGraph(Node[] ns) {
+        assertEquals(expected.getNodes(), graph.getNodes());
+        assertEquals(expected.getEdges(), graph.getEdges());
+        Adjacency adjacency = graph.getAdjacency();
+        for (int v = 0; v < adjacency.getNodeCount(); v++) {
+            assertEquals(adjacency.getNode(v).getName(), adjacency.getName(v));
+        }
+        for (Node n : ns) {
+            assertEquals(expected.getOutgoingEdges(n), graph.getOutgoingEdges(n));
+            assertEquals(expected.searchReachable(n, 3, 1), graph.searchReachable(n, 3, 1));
+            for (Node m : ns) {
+                assertEquals(expected.searchShortest(n, m), graph.searchShortest(n, m));
+                List<Edge> best = expected.searchBest(n, m);
+                List<Edge> offHeapBest = graph.searchBest(n, m);
+                if (best == null) {
+                    assertNull(offHeapBest);
+                } else {
+                    // Ties between equally good paths can be broken either way
+                    assertEquals(best.size(), offHeapBest.size());
+                    assertEquals(getNumberOfSwitches(best), getNumberOfSwitches(offHeapBest));
+                    assertTrue(expected.searchShortest(n, m).contains(offHeapBest));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_same_nodes() {
+        Node[] ns = createNodes(1);
+        assertEquals(Arrays.asList(), graph.searchBest(ns[0], ns[0]));
+    }
+
+    @Test
+    public void test_unconnected_nodes() {
+        Node[] ns = createNodes(2);
+        assertNull(graph.searchBest(ns[0], ns[1]));
+    }
+
+    @Test
+    public void test_duplicated_edges_are_ignored() {
+        Node[] ns = createNodes(2);
+        connect(ns[0], ns[1], "blue");
+        Adjacency before = graph.getAdjacency();
+        connect(ns[0], ns[1], "blue");
+        // The graph is unchanged, so is its view
+        assertSame(before, graph.getAdjacency());
+        assertEquals(2, graph.getEdges().size());
+        assertSameGraph(ns);
+    }
+
+    @Test
+    public void test_changes_after_searching() {
+        Node[] ns = createNodes(3);
+        connect(ns[0], ns[1], "blue");
+        assertNull(graph.searchBest(ns[0], ns[2]));
+        connect(ns[1], ns[2], "red");
+        assertSameGraph(ns);
+    }
+
+    @Test
+    public void test_paths_outlive_changes() throws IOException {
+        graph.close();
+        directory = Files.createTempDirectory("offheap");
+        graph = new OffHeapMultigraph(directory);
+        Node[] ns = createNodes(3);
+        connect(ns[0], ns[1], "blue");
+        IndexedPath path = graph.searchBest(ns[0], ns[1]);
+        Adjacency before = path.getAdjacency();
+        connect(ns[1], ns[2], "red");
+        // The old rows are still there, the new ones hold the new edges
+        assertEquals(Arrays.asList(graph.createEdge(ns[0], ns[1], "blue")), path);
+        assertEquals(2, before.getEdgeCount());
+        assertEquals(4, graph.getAdjacency().getEdgeCount());
+    }
+
+    @Test
+    public void test_dropped_rows_released() throws IOException, InterruptedException {
+        graph.close();
+        directory = Files.createTempDirectory("offheap");
+        graph = new OffHeapMultigraph(directory);
+        Node[] ns = createNodes(10);
+        graph.getAdjacency();
+        long baseline = countFiles();
+        for (int i = 1; i < ns.length; i++) {
+            connect(ns[i - 1], ns[i], "blue");
+            assertEquals(2 * i, graph.getAdjacency().getEdgeCount());
+        }
+        // Nothing holds the older rows, so their files go once they are collected
+        for (int i = 0; i < 100 && countFiles() > baseline; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(baseline, countFiles());
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void test_views_ignore_newer_nodes() {
+        Node[] ns = createNodes(2);
+        connect(ns[0], ns[1], "blue");
+        Adjacency before = graph.getAdjacency();
+        Node added = graph.createNode("n9", "Station 9");
+        graph.addNode(added);
+        assertEquals(-1, before.indexOf(added));
+        assertEquals(2, graph.getAdjacency().indexOf(added));
+        // The old view still searches its own nodes
+        BestRouteSearch search = new BestRouteSearch(before);
+        search.search(before.indexOf(ns[0]));
+        assertTrue(search.isReached(before.indexOf(ns[1])));
+    }
+
+    @Test
+    public void test_same_results_as_indexed() {
+        Node[] ns = createRandomGraph(GraphFixtures.SEED, 40, 25);
+        assertSameGraph(ns);
+    }
+
+    @Test
+    public void test_file_backed() throws IOException {
+        graph.close();
+        directory = Files.createTempDirectory("offheap");
+        graph = new OffHeapMultigraph(directory);
+        Node[] ns = createRandomGraph(12, 30, 15);
+        assertSameGraph(ns);
+    }
+
+    @Test
+    public void test_string_pool_grows() {
+        OffHeapStringPool pool = new OffHeapStringPool(new OffHeapStorage(null), "test");
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            values.add("St\u00e4tion " + i);
+        }
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(i, pool.intern(values.get(i)));
+        }
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(i, pool.intern(values.get(i)));
+            assertEquals(i, pool.find(values.get(i)));
+            assertEquals(values.get(i), pool.get(i));
+        }
+        assertEquals(-1, pool.find("Nowhere"));
+        pool.release();
+    }
+}
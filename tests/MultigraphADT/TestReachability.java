@@ -0,0 +1,105 @@
+package MultigraphADT;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static MultigraphADT.GraphFixtures.connect;
+import static MultigraphADT.GraphFixtures.connectRandomly;
+import static MultigraphADT.GraphFixtures.createNodes;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.junit.Before;
+
+public class TestReachability {
+    private IndexedMultigraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new IndexedMultigraph();
+    }
+
+    /**
+     * Follows every walk within the budgets.
+     */
+    private void walk(Node node, String label, int edges, int switches, Set<Node> reached) {
+        reached.add(node);
+        if (edges == 0) return;
+        for (Edge e : graph.getOutgoingEdges(node)) {
+            boolean switching = label != null && !label.equals(e.getLabel());
+            if (switching && switches == 0) continue;
+            walk(e.getEndNode(), e.getLabel(), edges - 1, switching ? switches - 1 : switches, reached);
+        }
+    }
+
+    private Set<Node> bruteForce(Node origin, int maxEdges, int maxSwitches) {
+        Set<Node> reached = new HashSet<>();
+        walk(origin, null, maxEdges, maxSwitches, reached);
+        return reached;
+    }
+
+    @Test
+    public void test_origin_is_reachable() {
+        Node[] ns = createNodes(graph, 2);
+        connect(graph, ns[0], ns[1], "blue");
+        assertEquals(new HashSet<>(Arrays.asList(ns[0])), graph.searchReachable(ns[0], 0, 0));
+    }
+
+    @Test
+    public void test_switch_budget() {
+        Node[] ns = createNodes(graph, 4);
+        connect(graph, ns[0], ns[1], "blue");
+        connect(graph, ns[1], ns[2], "red");
+        connect(graph, ns[2], ns[3], "green");
+        assertEquals(new HashSet<>(Arrays.asList(ns[0], ns[1])), graph.searchReachable(ns[0], 3, 0));
+        assertEquals(new HashSet<>(Arrays.asList(ns[0], ns[1], ns[2])), graph.searchReachable(ns[0], 3, 1));
+        assertEquals(new HashSet<>(Arrays.asList(ns[0], ns[1], ns[2], ns[3])), graph.searchReachable(ns[0], 3, 2));
+        assertEquals(new HashSet<>(Arrays.asList(ns[0], ns[1], ns[2])), graph.searchReachable(ns[0], 2, 2));
+    }
+
+    @Test
+    public void test_fewer_switches_win_over_fewer_edges() {
+        Node[] ns = createNodes(graph, 5);
+        // Short way to n2 switches lines, the long way does not
+        connect(graph, ns[0], ns[1], "blue");
+        connect(graph, ns[1], ns[2], "red");
+        connect(graph, ns[0], ns[3], "red");
+        connect(graph, ns[3], ns[4], "red");
+        connect(graph, ns[4], ns[2], "red");
+        connect(graph, ns[2], ns[1], "green");
+        Set<Node> expected = new HashSet<>(Arrays.asList(ns[0], ns[1], ns[2], ns[3], ns[4]));
+        assertEquals(expected, graph.searchReachable(ns[0], 4, 0));
+    }
+
+    @Test
+    public void test_matches_brute_force() {
+        Node[] ns = createNodes(graph, 90);
+        String[] lines = {"blue", "red", "green", "orange"};
+        connectRandomly(new Random(GraphFixtures.SEED), ns, lines, 30, graph);
+
+        // More than 64 origins, so that more than one batch is searched
+        List<Node> origins = Arrays.asList(ns);
+        for (int maxSwitches = 0; maxSwitches <= 2; maxSwitches++) {
+            Map<Node,Set<Node>> reached = graph.searchReachable(origins, 4, maxSwitches);
+            for (Node origin : ns) {
+                assertEquals(bruteForce(origin, 4, maxSwitches), reached.get(origin));
+            }
+        }
+    }
+
+    @Test
+    public void test_unlimited_switches() {
+        Node[] ns = createNodes(graph, 4);
+        connect(graph, ns[0], ns[1], "blue");
+        connect(graph, ns[1], ns[2], "red");
+        connect(graph, ns[2], ns[3], "green");
+        Set<Node> all = new HashSet<>(Arrays.asList(ns));
+        assertEquals(all, graph.searchReachable(ns[0], 3, Integer.MAX_VALUE));
+        assertEquals(all, graph.searchReachable(ns[0], Integer.MAX_VALUE, Integer.MAX_VALUE));
+        // The reused workspace starts clean
+        assertEquals(new HashSet<>(Arrays.asList(ns[3], ns[2])), graph.searchReachable(ns[3], 1, Integer.MAX_VALUE));
+    }
+}
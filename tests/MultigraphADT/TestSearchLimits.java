@@ -0,0 +1,173 @@
+package MultigraphADT;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static MultigraphADT.GraphFixtures.connect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.Before;
+
+public class TestSearchLimits {
+    private IndexedMultigraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new IndexedMultigraph();
+    }
+
+    private Node node(String id) {
+        Node n = graph.createNode(id, "");
+        graph.addNode(n);
+        return n;
+    }
+
+    /**
+     * Chains the given number of diamonds, so there are 2^diamonds shortest
+     * paths between the ends. Returns the ends.
+     */
+    private Node[] createDiamonds(int diamonds) {
+        Node start = node("s0");
+        Node at = start;
+        for (int i = 0; i < diamonds; i++) {
+            Node next = node("s" + (i + 1));
+            Node a = node("a" + i);
+            Node b = node("b" + i);
+            connect(graph, at, a, "red");
+            connect(graph, a, next, "red");
+            connect(graph, at, b, "blue");
+            connect(graph, b, next, "blue");
+            at = next;
+        }
+        return new Node[] {start, at};
+    }
+
+    /**
+     * A square grid of one line per row and column. Returns opposite corners.
+     */
+    private Node[] createGrid(int side) {
+        Node[] ns = new Node[side * side];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = node("n" + i);
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) connect(graph, ns[r * side + c], ns[r * side + c + 1], "row" + r);
+                if (r + 1 < side) connect(graph, ns[r * side + c], ns[(r + 1) * side + c], "col" + c);
+            }
+        }
+        return new Node[] {ns[0], ns[ns.length - 1]};
+    }
+
+    @Test
+    public void test_no_limits_reached() {
+        Node[] ends = createDiamonds(4);
+        SearchLimits limits = SearchLimits.NONE.withTimeout(10, TimeUnit.SECONDS).withMaxPaths(16);
+        SearchResult<Set<IndexedPath>> result = graph.searchShortest(ends[0], ends[1], limits);
+        assertTrue(result.isComplete());
+        assertEquals(graph.searchShortest(ends[0], ends[1]), result.getValue());
+        assertEquals(16, result.getPathCount());
+
+        SearchResult<IndexedPath> best = graph.searchBest(ends[0], ends[1], limits);
+        assertTrue(best.isComplete());
+        assertEquals(8, best.getValue().size());
+        assertEquals(1, best.getValue().getLegCount());
+    }
+
+    @Test
+    public void test_paths_budget() {
+        Node[] ends = createDiamonds(40);
+        SearchResult<Set<IndexedPath>> result = graph.searchShortest(ends[0], ends[1], SearchLimits.NONE.withMaxPaths(1000));
+        assertEquals(SearchResult.Status.BUDGET_EXHAUSTED, result.getStatus());
+        assertEquals(1000, result.getValue().size());
+        for (IndexedPath path : result.getValue()) {
+            assertEquals(80, path.size());
+            assertEquals(ends[0], path.getStartNode());
+            assertEquals(ends[1], path.getEndNode());
+        }
+    }
+
+    @Test
+    public void test_deadline_leaves_paths_unbounded() {
+        assertEquals(Long.MAX_VALUE, SearchLimits.NONE.getMaxPaths());
+        assertEquals(Long.MAX_VALUE, SearchLimits.NONE.withTimeout(1, TimeUnit.MINUTES).getMaxPaths());
+        // Limits are kept whichever is set first
+        assertEquals(50, SearchLimits.NONE.withMaxPaths(50).withTimeout(1, TimeUnit.MINUTES).getMaxPaths());
+        assertEquals(50, SearchLimits.NONE.withTimeout(1, TimeUnit.MINUTES).withMaxPaths(50).getMaxPaths());
+    }
+
+    @Test
+    public void test_expanded_budget() {
+        Node[] ends = createGrid(60);
+        SearchResult<IndexedPath> best = graph.searchBest(ends[0], ends[1], SearchLimits.NONE.withMaxExpanded(500));
+        assertEquals(SearchResult.Status.BUDGET_EXHAUSTED, best.getStatus());
+        assertNull(best.getValue());
+        assertEquals(500, best.getExpandedCount());
+
+        SearchResult<Set<IndexedPath>> shortest = graph.searchShortest(ends[0], ends[1], SearchLimits.NONE.withMaxExpanded(500));
+        assertEquals(SearchResult.Status.BUDGET_EXHAUSTED, shortest.getStatus());
+        assertTrue(shortest.getValue().isEmpty());
+        assertEquals(500, shortest.getExpandedCount());
+    }
+
+    @Test
+    public void test_bounded_work() {
+        Node[] ends = createDiamonds(60);
+        SearchLimits limits = SearchLimits.NONE.withMaxExpanded(1000).withMaxPaths(5000);
+        for (int i = 0; i < 20; i++) {
+            SearchResult<Set<IndexedPath>> result = graph.searchShortest(ends[0], ends[1], limits);
+            // Every search stops at the same budget, far from the 2^60 paths
+            // an unbounded search would enumerate
+            assertEquals(SearchResult.Status.BUDGET_EXHAUSTED, result.getStatus());
+            assertEquals(5000, result.getPathCount());
+            assertEquals(5000, result.getValue().size());
+            assertTrue(result.getExpandedCount() <= 1000);
+        }
+    }
+
+    @Test
+    public void test_guided_search_limits() {
+        Node[] ends = createGrid(60);
+        graph.setLandmarks(Landmarks.select(graph.getAdjacency(), 4));
+        SearchResult<Set<IndexedPath>> result = graph.searchShortest(ends[0], ends[1], SearchLimits.NONE.withMaxPaths(10));
+        assertEquals(SearchResult.Status.BUDGET_EXHAUSTED, result.getStatus());
+        assertEquals(10, result.getValue().size());
+        assertNull(graph.searchBest(ends[0], ends[1], SearchLimits.NONE.withMaxExpanded(10)).getValue());
+    }
+
+    @Test
+    public void test_interrupted_before() {
+        Node[] ends = createDiamonds(4);
+        Thread.currentThread().interrupt();
+        SearchResult<IndexedPath> result = graph.searchBest(ends[0], ends[1], SearchLimits.NONE);
+        // The flag is left for the caller to see
+        assertTrue(Thread.interrupted());
+        assertEquals(SearchResult.Status.INTERRUPTED, result.getStatus());
+        assertNull(result.getValue());
+    }
+
+    @Test
+    public void test_interrupted_while_searching() throws InterruptedException {
+        Node[] ends = createDiamonds(60);
+        AtomicReference<SearchResult<Set<IndexedPath>>> result = new AtomicReference<>();
+        AtomicBoolean flagLeft = new AtomicBoolean();
+        // The search thread interrupts itself, so the outcome does not depend
+        // on timing, and the cap bounds the search if the flag were missed
+        Thread search = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            result.set(graph.searchShortest(ends[0], ends[1], SearchLimits.NONE.withMaxPaths(1000)));
+            flagLeft.set(Thread.currentThread().isInterrupted());
+        });
+        search.setDaemon(true);
+        search.start();
+        search.join(10000);
+        assertFalse(search.isAlive());
+        assertEquals(SearchResult.Status.INTERRUPTED, result.get().getStatus());
+        assertTrue(flagLeft.get());
+    }
+}